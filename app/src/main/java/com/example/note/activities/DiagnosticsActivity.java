@@ -0,0 +1,76 @@
+package com.example.note.activities;
+
+import android.content.Intent;
+import android.os.Bundle;
+import android.view.Menu;
+import android.view.MenuItem;
+import android.widget.TextView;
+
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.appcompat.widget.Toolbar;
+
+import com.example.note.R;
+import com.example.note.diagnostics.DatabaseDiagnostics;
+import com.example.note.diagnostics.ListDiagnostics;
+
+import java.util.Objects;
+
+// Shows the timings collected since the app started, and shares them as text for analysis off the device.
+public class DiagnosticsActivity extends AppCompatActivity {
+
+    private TextView diagnosticsText;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_diagnostics);
+
+        Toolbar toolbar = findViewById(R.id.toolbar);
+        setSupportActionBar(toolbar);
+        toolbar.setNavigationIcon(R.drawable.ic_arrow_back);
+        Objects.requireNonNull(getSupportActionBar()).setTitle(R.string.diagnostics);
+        toolbar.setNavigationOnClickListener(v -> onBackPressed());
+
+        this.diagnosticsText = findViewById(R.id.diagnosticsText);
+        showReport();
+    }
+
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        getMenuInflater().inflate(R.menu.diagnostics_menu, menu);
+        return true;
+    }
+
+    @Override
+    public boolean onOptionsItemSelected(MenuItem item) {
+        if (item.getItemId() == R.id.share_diagnostics) {
+            Intent intent = new Intent(Intent.ACTION_SEND);
+            intent.setType("text/plain");
+            intent.putExtra(Intent.EXTRA_SUBJECT, "Note diagnostics");
+            intent.putExtra(Intent.EXTRA_TEXT, buildReport());
+            startActivity(Intent.createChooser(intent, getString(R.string.share_diagnostics)));
+
+            return true;
+        }
+        if (item.getItemId() == R.id.reset_diagnostics) {
+            DatabaseDiagnostics.getInstance().reset();
+            ListDiagnostics.getInstance().reset();
+            showReport();
+
+            return true;
+        }
+        return super.onOptionsItemSelected(item);
+    }
+
+    private void showReport() {
+        this.diagnosticsText.setText(buildReport());
+    }
+
+    private static String buildReport() {
+        StringBuilder report = new StringBuilder();
+        DatabaseDiagnostics.getInstance().dump(report);
+        report.append('\n');
+        ListDiagnostics.getInstance().dump(report);
+        return report.toString();
+    }
+}
@@ -2,9 +2,8 @@ package com.example.note.activities;
 
 import android.content.Intent;
 import android.graphics.drawable.ColorDrawable;
+import android.net.Uri;
 import android.os.Bundle;
-import android.os.Handler;
-import android.os.Looper;
 import android.text.Editable;
 import android.text.TextWatcher;
 import android.view.LayoutInflater;
@@ -14,68 +13,60 @@ import android.view.View;
 import android.view.inputmethod.EditorInfo;
 import android.widget.EditText;
 import android.widget.ImageView;
-import android.widget.PopupMenu;
 import android.widget.SearchView;
 import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.activity.result.ActivityResultLauncher;
 import androidx.activity.result.contract.ActivityResultContracts;
+import androidx.annotation.NonNull;
 import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.appcompat.view.ActionMode;
 import androidx.appcompat.widget.Toolbar;
 import androidx.recyclerview.widget.RecyclerView;
 import androidx.recyclerview.widget.StaggeredGridLayoutManager;
 
 import com.example.note.R;
 import com.example.note.adapters.NoteAdapter;
-import com.example.note.database.NoteDatabase;
-import com.example.note.entities.Note;
+import com.example.note.diagnostics.ListDiagnostics;
+import com.example.note.diagnostics.ScrollFrameMonitor;
+import com.example.note.entities.NoteSummary;
 import com.example.note.listeners.NoteListener;
+import com.example.note.notification.ReminderScheduler;
+import com.example.note.paging.FirstScreenSnapshot;
+import com.example.note.paging.NotePager;
+import com.example.note.repository.NoteRepository;
+import com.example.note.search.SearchPipeline;
+import com.example.note.util.NoteColors;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 
-import java.util.ArrayList;
+import java.io.FileNotFoundException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 public class MainActivity extends AppCompatActivity implements NoteListener {
 
-    public static final int REQUEST_CODE_ADD_NOTE = 1;
-    public static final int REQUEST_CODE_UPDATE_NOTE = 2;
-    public static final int REQUEST_CODE_DELETE_NOTE = 3;
-    public static final int REQUEST_CODE_DELETE_NEW_NOTE = 4;
+    private static final int PAGE_SIZE = 50;
+    private static final int PREFETCH_DISTANCE = 20;
 
     private RecyclerView recyclerView;
-    private List<Note> notes;
     private NoteAdapter noteAdapter;
     private FloatingActionButton addButton;
     private ImageView emptyImage;
     private TextView emptyText;
     private EditText searchInput;
-    private int noteChosenPosition = -1;
-
-    private final ActivityResultLauncher<Intent> noteActivityResultLauncherAddNote = registerForActivityResult(
-            new ActivityResultContracts.StartActivityForResult(),
-            result -> {
-                switch (result.getResultCode()) {
-                    case REQUEST_CODE_ADD_NOTE: {
-                        getNotes(REQUEST_CODE_ADD_NOTE);
-                        break;
-                    }
-                    case REQUEST_CODE_UPDATE_NOTE: {
-                        getNotes(REQUEST_CODE_UPDATE_NOTE);
-                        break;
-                    }
-                    case REQUEST_CODE_DELETE_NOTE: {
-                        getNotes(REQUEST_CODE_DELETE_NOTE);
-                        break;
-                    }
-                    case REQUEST_CODE_DELETE_NEW_NOTE: {
-                        break;
-                    }
-                }
-            });
+    private NotePager notePager;
+    private SearchPipeline searchPipeline;
+    private NoteRepository noteRepository;
+    private ActionMode selectionMode;
+
+    private final ActivityResultLauncher<String> exportLauncher =
+            registerForActivityResult(new ActivityResultContracts.CreateDocument(), this::exportNotes);
+
+    private final ActivityResultLauncher<String[]> importLauncher =
+            registerForActivityResult(new ActivityResultContracts.OpenDocument(), this::importNotes);
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -90,58 +81,125 @@ public class MainActivity extends AppCompatActivity implements NoteListener {
         emptyText = findViewById(R.id.empty_text);
         addButton = findViewById(R.id.add_button);
         searchInput = findViewById(R.id.searchInput);
+        noteRepository = NoteRepository.getInstance(this);
 
         addButton.setOnClickListener(v -> {
             Intent intent = new Intent(this, NoteActivity.class);
-            noteActivityResultLauncherAddNote.launch(intent);
+            startActivity(intent);
         });
 
         initRecyclerView();
     }
 
     private void initRecyclerView() {
-        ExecutorService executor = Executors.newSingleThreadExecutor();
-        Handler handler = new Handler(Looper.getMainLooper());
-
-        executor.execute(() -> {
-
-            ArrayList<Note> notesFromDb = (ArrayList<Note>) NoteDatabase.getNoteDatabase(getApplicationContext()).noteDao().getAllNotes();
-
-            handler.post(() -> {
-                notes = new ArrayList<>(notesFromDb);
-
-                noteAdapter = new NoteAdapter(MainActivity.this, notes, this);
-                noteAdapter.notifyItemRangeChanged(0, notes.size());
-
-                if (notes.size() == 0) {
-                    showEmptyContent();
-                } else {
-                    hideEmptyContent();
+        noteAdapter = new NoteAdapter(MainActivity.this, this);
+        noteAdapter.registerAdapterDataObserver(new RecyclerView.AdapterDataObserver() {
+            @Override
+            public void onItemRangeInserted(int positionStart, int itemCount) {
+                // Keeps a new note in view when the list was at the top, without pulling the user back up when
+                // search results, a reload or the first page arrive while they are scrolled down.
+                if (positionStart == 0 && !recyclerView.canScrollVertically(-1)) {
+                    recyclerView.scrollToPosition(0);
                 }
+            }
+        });
 
-                recyclerView.setLayoutManager(new StaggeredGridLayoutManager(2, StaggeredGridLayoutManager.VERTICAL));
-                recyclerView.setAdapter(noteAdapter);
-
-                noteAdapter.getFilter().filter(searchInput.getText().toString());
+        StaggeredGridLayoutManager layoutManager = new StaggeredGridLayoutManager(2, StaggeredGridLayoutManager.VERTICAL);
+        recyclerView.setLayoutManager(layoutManager);
+        recyclerView.setAdapter(noteAdapter);
 
-                searchInput.addTextChangedListener(new TextWatcher() {
+        notePager = new NotePager(
+                noteRepository,
+                PAGE_SIZE,
+                PREFETCH_DISTANCE,
+                new NotePager.PageListener() {
                     @Override
-                    public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+                    public void onPageLoaded(List<NoteSummary> page, boolean isFirstPage) {
+                        if (isFirstPage) {
+                            // Replaces the snapshot shown at launch; the differ only rebinds the cards that changed.
+                            noteAdapter.setNotes(page);
+                            noteRepository.saveFirstScreenSnapshot(page);
+                        } else {
+                            noteAdapter.appendNotes(page);
+                        }
+                        onNotesChanged();
                     }
 
                     @Override
-                    public void onTextChanged(CharSequence s, int start, int before, int count) {
-                        noteAdapter.getFilter().filter(s.toString());
+                    public void onWindowChanged(List<NoteSummary> changedNotes, List<Long> windowIds, long oldestId) {
+                        int firstChangedPosition = noteAdapter.applyWindowChanges(oldestId, changedNotes, windowIds);
+                        if (firstChangedPosition == -1) {
+                            return;
+                        }
+                        if (firstChangedPosition < FirstScreenSnapshot.MAX_NOTES) {
+                            noteRepository.saveFirstScreenSnapshot(noteAdapter.notesBackup);
+                        }
+                        onNotesChanged();
                     }
 
                     @Override
-                    public void afterTextChanged(Editable s) {
+                    public void onNotesInvalidated() {
+                        // Search results can hold notes outside the loaded window, so they are searched again
+                        // whatever the window reload finds.
+                        searchPipeline.refresh();
                     }
                 });
-            });
+
+        recyclerView.addOnScrollListener(new ScrollFrameMonitor(ListDiagnostics.getInstance()));
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                int lastVisiblePosition = RecyclerView.NO_POSITION;
+                for (int position : layoutManager.findLastVisibleItemPositions(null)) {
+                    lastVisiblePosition = Math.max(lastVisiblePosition, position);
+                }
+                notePager.onScrolled(lastVisiblePosition, noteAdapter.getItemCount());
+            }
         });
+
+        searchInput.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+                searchPipeline.setQuery(s.toString());
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+            }
+        });
+
+        searchPipeline = new SearchPipeline(noteRepository, new SearchPipeline.ResultListener() {
+            @Override
+            public void onSearchResults(List<NoteSummary> results) {
+                noteAdapter.showSearchResults(results);
+            }
+
+            @Override
+            public void onSearchCleared() {
+                noteAdapter.showAllNotes();
+            }
+        });
+
+        // Draws the notes from the last session right away, while the database opens and the first page loads.
+        List<NoteSummary> snapshot = noteRepository.readFirstScreenSnapshot();
+        if (!snapshot.isEmpty()) {
+            noteAdapter.setNotes(snapshot);
+            noteAdapter.showAllNotes();
+        }
+
+        notePager.loadFirstPage();
     }
 
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        notePager.close();
+        searchPipeline.close();
+    }
 
     @Override
     public boolean onCreateOptionsMenu(Menu menu) {
@@ -159,7 +217,7 @@ public class MainActivity extends AppCompatActivity implements NoteListener {
 
             @Override
             public boolean onQueryTextChange(String newText) {
-                noteAdapter.getFilter().filter(newText);
+                searchPipeline.setQuery(newText);
 
                 return false;
             }
@@ -174,6 +232,26 @@ public class MainActivity extends AppCompatActivity implements NoteListener {
 
             return true;
         }
+        if (item.getItemId() == R.id.export_notes) {
+            exportLauncher.launch("notes.zip");
+
+            return true;
+        }
+        if (item.getItemId() == R.id.import_notes) {
+            importLauncher.launch(new String[]{"application/zip"});
+
+            return true;
+        }
+        if (item.getItemId() == R.id.diagnostics) {
+            startActivity(new Intent(this, DiagnosticsActivity.class));
+
+            return true;
+        }
+        if (item.getItemId() == R.id.reminder_delivery) {
+            showReminderDeliveryDialog();
+
+            return true;
+        }
         return super.onOptionsItemSelected(item);
     }
 
@@ -192,19 +270,12 @@ public class MainActivity extends AppCompatActivity implements NoteListener {
 
         dialogLayout.findViewById(R.id.textDeleteNote).setOnClickListener(v -> {
 
-            ExecutorService executor = Executors.newSingleThreadExecutor();
-            Handler handler = new Handler(Looper.getMainLooper());
-
-            executor.execute(() -> {
-                NoteDatabase.getNoteDatabase(getApplicationContext()).noteDao().deleteAllNotes();
-
-                handler.post(() -> {
-                    dialogDeleteAllNotes.dismiss();
-                    Toast.makeText(this, "Deleted all notes", Toast.LENGTH_SHORT).show();
-                    Intent intent = new Intent(this, MainActivity.class);
-                    startActivity(intent);
-                    finish();
-                });
+            noteRepository.deleteAllNotes(deleted -> {
+                dialogDeleteAllNotes.dismiss();
+                if (deleted == null) {
+                    return;
+                }
+                Toast.makeText(this, "Deleted all notes", Toast.LENGTH_SHORT).show();
             });
         });
         dialogLayout.findViewById(R.id.deleteNoteCancel).setOnClickListener(v -> dialogDeleteAllNotes.dismiss());
@@ -212,31 +283,76 @@ public class MainActivity extends AppCompatActivity implements NoteListener {
         dialogDeleteAllNotes.show();
     }
 
-    private void getNotes(final int requestCode) {
-
-        ExecutorService executor = Executors.newSingleThreadExecutor();
-        Handler handler = new Handler(Looper.getMainLooper());
+    private void showReminderDeliveryDialog() {
+        long deliveryWindowMillis = noteRepository.getReminderDeliveryWindow();
+        int checkedItem = 0;
+        for (int i = 0; i < ReminderScheduler.DELIVERY_WINDOWS_MILLIS.length; i++) {
+            if (ReminderScheduler.DELIVERY_WINDOWS_MILLIS[i] == deliveryWindowMillis) {
+                checkedItem = i;
+            }
+        }
 
-        executor.execute(() -> {
+        new AlertDialog.Builder(this)
+                .setTitle(R.string.reminder_delivery)
+                .setSingleChoiceItems(R.array.reminder_delivery_windows, checkedItem, (dialog, which) -> {
+                    noteRepository.setReminderDeliveryWindow(ReminderScheduler.DELIVERY_WINDOWS_MILLIS[which], null);
+                    dialog.dismiss();
+                })
+                .show();
+    }
 
-            ArrayList<Note> notesFromDb = (ArrayList<Note>) NoteDatabase.getNoteDatabase(getApplicationContext()).noteDao().getAllNotes();
+    private void exportNotes(Uri uri) {
+        if (uri == null) {
+            return;
+        }
+        try {
+            OutputStream outputStream = getContentResolver().openOutputStream(uri);
+            noteRepository.exportNotes(outputStream, exportedNotes -> {
+                if (exportedNotes == null) {
+                    Toast.makeText(this, R.string.export_failed, Toast.LENGTH_SHORT).show();
+                } else {
+                    Toast.makeText(this, getResources().getQuantityString(R.plurals.exported_notes, exportedNotes, exportedNotes), Toast.LENGTH_SHORT).show();
+                }
+            });
+        } catch (FileNotFoundException exception) {
+            Toast.makeText(this, exception.getMessage(), Toast.LENGTH_SHORT).show();
+        }
+    }
 
-            handler.post(() -> {
-                if (requestCode == REQUEST_CODE_ADD_NOTE) {
-                    hideEmptyContent();
-                    noteAdapter.addNote(0, notesFromDb.get(0));
-                    recyclerView.smoothScrollToPosition(0);
-                } else if (requestCode == REQUEST_CODE_UPDATE_NOTE) {
-                    noteAdapter.updateNote(noteChosenPosition, notesFromDb);
-                } else if (requestCode == REQUEST_CODE_DELETE_NOTE) {
-                    noteAdapter.deleteNote(noteChosenPosition);
-                    if (noteAdapter.thereAreNoNotes()) {
-                        showEmptyContent();
-                    }
+    private void importNotes(Uri uri) {
+        if (uri == null) {
+            return;
+        }
+        try {
+            InputStream inputStream = getContentResolver().openInputStream(uri);
+            noteRepository.importNotes(inputStream, result -> {
+                int importedNotes = result == null ? 0 : result.getImportedNotes();
+                if (result == null || (!result.isComplete() && importedNotes == 0)) {
+                    Toast.makeText(this, R.string.import_failed, Toast.LENGTH_SHORT).show();
+                } else if (!result.isComplete()) {
+                    Toast.makeText(this, getResources().getQuantityString(R.plurals.import_stopped, importedNotes, importedNotes), Toast.LENGTH_LONG).show();
+                } else {
+                    Toast.makeText(this, getResources().getQuantityString(R.plurals.imported_notes, importedNotes, importedNotes), Toast.LENGTH_SHORT).show();
                 }
-                noteAdapter.getFilter().filter(searchInput.getText().toString());
             });
-        });
+        } catch (FileNotFoundException exception) {
+            Toast.makeText(this, exception.getMessage(), Toast.LENGTH_SHORT).show();
+        }
+    }
+
+    private void onNotesChanged() {
+        if (noteAdapter.thereAreNoNotes()) {
+            if (notePager.isEndReached()) {
+                showEmptyContent();
+            } else {
+                notePager.loadNextPage();
+            }
+        } else {
+            hideEmptyContent();
+        }
+        if (!searchPipeline.isSearching()) {
+            noteAdapter.showAllNotes();
+        }
     }
 
     private void showEmptyContent() {
@@ -250,56 +366,118 @@ public class MainActivity extends AppCompatActivity implements NoteListener {
     }
 
     @Override
-    public void onNoteClicked(Note note, int position) {
-        noteChosenPosition = position;
+    public void onNoteClicked(NoteSummary note) {
+        if (selectionMode != null) {
+            toggleNoteSelection(note);
+            return;
+        }
 
         Intent intent = new Intent(getApplicationContext(), NoteActivity.class);
-        intent.putExtra("isNewNote", false);
-        intent.putExtra("note", note);
+        intent.putExtra(NoteActivity.EXTRA_NOTE_ID, note.getId());
 
-        noteActivityResultLauncherAddNote.launch(intent);
+        startActivity(intent);
     }
 
     @Override
-    public void onNoteLongClicked(Note note, int position, View view) {
-        noteChosenPosition = position;
+    public void onNoteLongClicked(NoteSummary note, View view) {
+        if (selectionMode == null) {
+            selectionMode = startSupportActionMode(selectionModeCallback);
+        }
+        toggleNoteSelection(note);
+    }
 
-        PopupMenu popupMenu = new PopupMenu(this, view);
-        popupMenu.getMenuInflater().inflate(R.menu.popup_menu, popupMenu.getMenu());
+    private void toggleNoteSelection(NoteSummary note) {
+        noteAdapter.toggleSelection(note.getId());
 
-        popupMenu.setOnMenuItemClickListener(item -> {
+        int selectedCount = noteAdapter.getSelectedCount();
+        if (selectedCount == 0) {
+            selectionMode.finish();
+        } else {
+            selectionMode.setTitle(String.valueOf(selectedCount));
+        }
+    }
 
-            View dialogLayout = LayoutInflater.from(this).inflate(R.layout.layout_delete_note_dialog, findViewById(R.id.layoutDeleteNoteContainer));
+    private final ActionMode.Callback selectionModeCallback = new ActionMode.Callback() {
+        @Override
+        public boolean onCreateActionMode(ActionMode mode, Menu menu) {
+            mode.getMenuInflater().inflate(R.menu.selection_menu, menu);
+            return true;
+        }
 
-            AlertDialog.Builder builder = new AlertDialog.Builder(this);
-            builder.setView(dialogLayout);
+        @Override
+        public boolean onPrepareActionMode(ActionMode mode, Menu menu) {
+            return false;
+        }
 
-            AlertDialog dialogDeleteNote = builder.create();
+        @Override
+        public boolean onActionItemClicked(ActionMode mode, MenuItem item) {
+            if (item.getItemId() == R.id.delete_selected) {
+                confirmDeleteSelectedDialog();
 
-            if (dialogDeleteNote.getWindow() != null) {
-                dialogDeleteNote.getWindow().setBackgroundDrawable(new ColorDrawable(0));
+                return true;
             }
+            if (item.getItemId() == R.id.recolor_selected) {
+                showRecolorSelectedDialog();
 
-            dialogLayout.findViewById(R.id.textDeleteNote).setOnClickListener(v -> {
+                return true;
+            }
+            return false;
+        }
 
-                ExecutorService executor = Executors.newSingleThreadExecutor();
-                Handler handler = new Handler(Looper.getMainLooper());
+        @Override
+        public void onDestroyActionMode(ActionMode mode) {
+            selectionMode = null;
+            noteAdapter.clearSelection();
+        }
+    };
 
-                executor.execute(() -> {
-                    NoteDatabase.getNoteDatabase(getApplicationContext()).noteDao().deleteNote(note);
+    private void confirmDeleteSelectedDialog() {
+        final List<Long> selectedIds = noteAdapter.getSelectedIds();
 
-                    handler.post(() -> {
-                        getNotes(REQUEST_CODE_DELETE_NOTE);
-                        dialogDeleteNote.dismiss();
-                    });
-                });
-            });
-            dialogLayout.findViewById(R.id.deleteNoteCancel).setOnClickListener(v -> dialogDeleteNote.dismiss());
+        View dialogLayout = LayoutInflater.from(this).inflate(R.layout.layout_delete_note_dialog, findViewById(R.id.layoutDeleteNoteContainer));
+        if (selectedIds.size() > 1) {
+            TextView message = dialogLayout.findViewById(R.id.textDeleteNoteMessage);
+            message.setText(getResources().getQuantityString(R.plurals.delete_selected_dialog_message, selectedIds.size(), selectedIds.size()));
+        }
 
-            dialogDeleteNote.show();
+        AlertDialog.Builder builder = new AlertDialog.Builder(this);
+        builder.setView(dialogLayout);
 
-            return true;
+        AlertDialog dialogDeleteNotes = builder.create();
+
+        if (dialogDeleteNotes.getWindow() != null) {
+            dialogDeleteNotes.getWindow().setBackgroundDrawable(new ColorDrawable(0));
+        }
+
+        dialogLayout.findViewById(R.id.textDeleteNote).setOnClickListener(v -> {
+
+            noteRepository.deleteNotes(selectedIds, deletedRows -> {
+                dialogDeleteNotes.dismiss();
+                if (deletedRows == null) {
+                    return;
+                }
+                if (selectionMode != null) {
+                    selectionMode.finish();
+                }
+                Toast.makeText(this, getResources().getQuantityString(R.plurals.deleted_selected, deletedRows, deletedRows), Toast.LENGTH_SHORT).show();
+            });
         });
-        popupMenu.show();
+        dialogLayout.findViewById(R.id.deleteNoteCancel).setOnClickListener(v -> dialogDeleteNotes.dismiss());
+
+        dialogDeleteNotes.show();
+    }
+
+    private void showRecolorSelectedDialog() {
+        final List<Long> selectedIds = noteAdapter.getSelectedIds();
+
+        new AlertDialog.Builder(this)
+                .setTitle(R.string.select_color)
+                .setItems(R.array.note_color_names, (dialog, which) ->
+                        noteRepository.recolorNotes(selectedIds, NoteColors.get(which), updatedRows -> {
+                            if (selectionMode != null) {
+                                selectionMode.finish();
+                            }
+                        }))
+                .show();
     }
-}
\ No newline at end of file
+}
@@ -3,21 +3,15 @@ package com.example.note.activities;
 import android.Manifest;
 import android.annotation.SuppressLint;
 import android.app.Activity;
-import android.app.AlarmManager;
 import android.app.DatePickerDialog;
-import android.app.NotificationChannel;
-import android.app.NotificationManager;
-import android.app.PendingIntent;
 import android.content.Intent;
 import android.content.pm.PackageManager;
-import android.graphics.Color;
 import android.graphics.drawable.ColorDrawable;
 import android.graphics.drawable.GradientDrawable;
-import android.os.Build;
 import android.os.Bundle;
-import android.os.Handler;
-import android.os.Looper;
 import android.provider.MediaStore;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.util.Patterns;
 import android.view.LayoutInflater;
 import android.view.Menu;
@@ -26,6 +20,7 @@ import android.view.View;
 import android.widget.EditText;
 import android.widget.ImageView;
 import android.widget.LinearLayout;
+import android.widget.ScrollView;
 import android.widget.TextView;
 import android.widget.Toast;
 
@@ -37,31 +32,41 @@ import androidx.appcompat.widget.Toolbar;
 import androidx.core.content.ContextCompat;
 
 import com.example.note.R;
-import com.example.note.database.NoteDatabase;
+import com.example.note.chunks.ChunkTracker;
 import com.example.note.databinding.ActivityNoteBinding;
+import com.example.note.editor.NoteAutoSaver;
 import com.example.note.entities.Note;
-import com.example.note.notification.AlarmReceiver;
+import com.example.note.entities.NoteChunk;
+import com.example.note.entities.NoteRevisionSummary;
+import com.example.note.entities.NoteSummary;
+import com.example.note.notification.ReminderNotifier;
+import com.example.note.repository.NoteChanges;
+import com.example.note.repository.NoteRepository;
+import com.example.note.util.NoteColors;
+import com.example.note.util.NoteDateFormatter;
 import com.google.android.material.bottomsheet.BottomSheetBehavior;
 import com.google.android.material.timepicker.MaterialTimePicker;
 import com.google.android.material.timepicker.TimeFormat;
 import com.squareup.picasso.Picasso;
 
 import java.io.File;
-import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Calendar;
-import java.util.Date;
-import java.util.Locale;
+import java.util.List;
 import java.util.Objects;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 public class NoteActivity extends AppCompatActivity {
 
-    private static final String COLOR_DEFAULT = "#444444";
-    private static final String COLOR_YELLOW = "#FDBE3B";
-    private static final String COLOR_RED = "#9B2335";
-    private static final String COLOR_BLUE = "#34568B";
-    private static final String COLOR_BLACK = "#000000";
+    public static final String EXTRA_NOTE_ID = "noteId";
+
+    private static final int COLOR_DEFAULT = NoteColors.DEFAULT;
+    private static final int COLOR_YELLOW = NoteColors.YELLOW;
+    private static final int COLOR_RED = NoteColors.RED;
+    private static final int COLOR_BLUE = NoteColors.BLUE;
+    private static final int COLOR_BLACK = NoteColors.BLACK;
+
+    // Chunks of a large note loaded into the editor at a time, about 64K characters.
+    private static final int CHUNK_PAGE_SIZE = 4;
 
     private boolean isNewNote;
     private Note note;
@@ -74,12 +79,18 @@ public class NoteActivity extends AppCompatActivity {
     private TextView textWebURL;
     private LinearLayout layoutWebURL;
 
-    private String selectedNoteColor;
+    private int selectedNoteColor;
     private String selectedImagePath;
     private String writtenWebUrl;
 
     private Calendar calendar;
 
+    private NoteAutoSaver noteAutoSaver;
+
+    private ChunkTracker chunkTracker;
+    private NoteRepository.Request chunkRequest;
+    private boolean loadingChunks;
+
     private final ActivityResultLauncher<String> requestPermissionLauncher =
             registerForActivityResult(new ActivityResultContracts.RequestPermission(), isGranted -> {
                 if (isGranted) {
@@ -101,6 +112,7 @@ public class NoteActivity extends AppCompatActivity {
 
                             imageView.setVisibility(View.VISIBLE);
                             findViewById(R.id.imageRemoveImage).setVisibility(View.VISIBLE);
+                            this.noteAutoSaver.markDirty(NoteChanges.IMAGE_PATH);
                         }
                     } catch (Exception exception) {
                         Toast.makeText(this, exception.getMessage(), Toast.LENGTH_SHORT).show();
@@ -115,7 +127,7 @@ public class NoteActivity extends AppCompatActivity {
 
         com.example.note.databinding.ActivityNoteBinding binding = ActivityNoteBinding.inflate(getLayoutInflater());
         setContentView(binding.getRoot());
-        createNotificationChannel();
+        ReminderNotifier.createNotificationChannel(this);
 
         //toolbar settings
         Toolbar toolbar = findViewById(R.id.toolbar);
@@ -131,23 +143,111 @@ public class NoteActivity extends AppCompatActivity {
         this.imageView = findViewById(R.id.imageNote);
         this.textWebURL = findViewById(R.id.textWebURL);
         this.layoutWebURL = findViewById(R.id.layoutWebURL);
-        this.isNewNote = getIntent().getBooleanExtra("isNewNote", true);
+        final long noteId = getIntent().getLongExtra(EXTRA_NOTE_ID, 0);
+        this.isNewNote = noteId == 0;
+        this.noteAutoSaver = new NoteAutoSaver(NoteRepository.getInstance(this), new NoteAutoSaver.EditorState() {
+            @Override
+            public String getTitle() {
+                return noteTitleEditText.getText().toString();
+            }
+
+            @Override
+            public CharSequence getContent() {
+                return noteContentEditText.getText();
+            }
+
+            @Override
+            public int getColor() {
+                return selectedNoteColor;
+            }
+
+            @Override
+            public String getImagePath() {
+                return selectedImagePath;
+            }
+
+            @Override
+            public String getWebLink() {
+                return writtenWebUrl;
+            }
+        });
+
+        watchForChanges(this.noteTitleEditText, NoteChanges.TITLE);
+        watchContentChanges();
+
+        ScrollView noteScrollView = findViewById(R.id.noteScrollView);
+        noteScrollView.setOnScrollChangeListener((v, scrollX, scrollY, oldScrollX, oldScrollY) -> {
+            // Appends the next chunks of a large note once the user is within a screen of the end.
+            int distanceToEnd = noteScrollView.getChildAt(0).getHeight() - scrollY - noteScrollView.getHeight();
+            if (distanceToEnd < noteScrollView.getHeight()) {
+                loadNextChunks();
+            }
+        });
 
         findViewById(R.id.imageRemoveImage).setOnClickListener(v -> {
             imageView.setImageBitmap(null);
             imageView.setVisibility(View.GONE);
             findViewById(R.id.imageRemoveImage).setVisibility(View.GONE);
             selectedImagePath = "";
+            this.noteAutoSaver.markDirty(NoteChanges.IMAGE_PATH);
         });
 
         findViewById(R.id.imageRemoveWebURL).setOnClickListener(v -> {
             textWebURL.setText(null);
             layoutWebURL.setVisibility(View.GONE);
             this.writtenWebUrl = "";
+            this.noteAutoSaver.markDirty(NoteChanges.WEB_LINK);
         });
 
-        setupActivity();
+        setupActivity(noteId);
         initOptions();
+
+        if (this.isNewNote) {
+            this.noteAutoSaver.start(0, this.note.getCreatedAt());
+        }
+    }
+
+    @Override
+    protected void onPause() {
+        super.onPause();
+        this.noteAutoSaver.checkpoint();
+    }
+
+    private void watchForChanges(EditText editText, int field) {
+        editText.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                noteAutoSaver.markDirty(field);
+            }
+        });
+    }
+
+    // Content edits are passed on with their range, so that only the touched chunks of a large note are saved.
+    private void watchContentChanges() {
+        this.noteContentEditText.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+                if (!loadingChunks) {
+                    noteAutoSaver.onContentChanged(start, before, count);
+                }
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+            }
+        });
     }
 
     @Override
@@ -165,6 +265,11 @@ public class NoteActivity extends AppCompatActivity {
 
             return true;
         }
+        if (itemId == R.id.note_history) {
+            showHistoryDialog();
+
+            return true;
+        }
         if (itemId == R.id.action_settings) {
             confirmDeleteDialog();
 
@@ -175,39 +280,134 @@ public class NoteActivity extends AppCompatActivity {
 
     }
 
-    private void setupActivity() {
+    private void setupActivity(long noteId) {
         if (!this.isNewNote) {
+            this.selectedNoteColor = COLOR_DEFAULT;
 
-            this.note = (Note) getIntent().getSerializableExtra("note");
-            this.noteTitleEditText.setText(note.getTitle());
-            this.noteContentEditText.setText(note.getContent());
-            this.noteCreationDateTime.setText(note.getCreationDateTime());
-            this.selectedNoteColor = note.getColor();
-            this.selectedImagePath = note.getImagePath();
-            this.writtenWebUrl = note.getWebLink();
-
-            if (this.selectedImagePath != null && !this.selectedImagePath.trim().isEmpty()) {
-                Picasso.get().load(new File(this.selectedImagePath)).into(imageView);
-                imageView.setVisibility(View.VISIBLE);
-                findViewById(R.id.imageRemoveImage).setVisibility(View.VISIBLE);
-            }
-
-            if (this.writtenWebUrl != null && !this.writtenWebUrl.trim().isEmpty()) {
-                textWebURL.setText(this.writtenWebUrl);
-                layoutWebURL.setVisibility(View.VISIBLE);
+            // Show what the list already knows about the note while the full row loads.
+            NoteSummary summary = NoteRepository.getInstance(this).getCachedSummary(noteId);
+            if (summary != null) {
+                this.noteTitleEditText.setText(summary.getTitle());
+                this.noteContentEditText.setText(summary.getPreview());
+                this.noteCreationDateTime.setText(NoteDateFormatter.format(summary.getCreatedAt()));
+                this.selectedNoteColor = summary.getColor();
+                showImage(summary.getImagePath());
             }
+            loadNote(noteId);
 
         } else {
             this.note = new Note();
             this.selectedNoteColor = COLOR_DEFAULT;
             this.selectedImagePath = "";
             this.writtenWebUrl = "";
-            this.noteCreationDateTime.setText(new SimpleDateFormat(
-                    "HH:mm - EEEE, dd MMMM yyyy", Locale.getDefault()).format(new Date().getTime())
-            );
+            this.note.setCreatedAt(System.currentTimeMillis());
+            this.noteCreationDateTime.setText(NoteDateFormatter.format(this.note.getCreatedAt()));
+        }
+    }
+
+    // Loads the note into the editor, only the first page of chunks for a chunked note, and starts saving it.
+    private void loadNote(long noteId) {
+        setEditingEnabled(false);
+
+        NoteRepository.getInstance(this).getNoteById(noteId, loadedNote -> {
+            if (loadedNote == null) {
+                finish();
+                return;
+            }
+            if (!loadedNote.isChunked()) {
+                showLoadedNote(loadedNote);
+                return;
+            }
+
+            this.chunkTracker = new ChunkTracker();
+            this.chunkRequest = NoteRepository.getInstance(this).getChunksAfter(
+                    loadedNote.getId(), Long.MIN_VALUE, CHUNK_PAGE_SIZE + 1, chunks -> {
+                        this.chunkRequest = null;
+                        if (chunks == null) {
+                            finish();
+                            return;
+                        }
+                        loadedNote.setContent(takeChunkPage(chunks));
+                        showLoadedNote(loadedNote);
+                    });
+        });
+    }
+
+    private void showLoadedNote(Note loadedNote) {
+        showNote(loadedNote);
+        setEditingEnabled(true);
+        this.noteAutoSaver.setChunkTracker(this.chunkTracker);
+        this.noteAutoSaver.start(loadedNote.getId(), loadedNote.getCreatedAt());
+    }
+
+    private void loadNextChunks() {
+        if (this.chunkTracker == null || !this.chunkTracker.hasUnloadedChunks() || this.chunkRequest != null) {
+            return;
+        }
+        this.chunkRequest = NoteRepository.getInstance(this).getChunksAfter(
+                this.note.getId(), this.chunkTracker.getNextUnloadedPosition() - 1, CHUNK_PAGE_SIZE + 1, chunks -> {
+                    this.chunkRequest = null;
+                    if (chunks == null) {
+                        return;
+                    }
+                    String page = takeChunkPage(chunks);
+                    this.loadingChunks = true;
+                    this.noteContentEditText.append(page);
+                    this.loadingChunks = false;
+                });
+    }
+
+    // Hands up to CHUNK_PAGE_SIZE chunks to the tracker and returns their text. The query asks for one chunk
+    // more than that, only to learn where the next page starts.
+    private String takeChunkPage(List<NoteChunk> chunks) {
+        int pageSize = Math.min(chunks.size(), CHUNK_PAGE_SIZE);
+        StringBuilder page = new StringBuilder();
+        List<Long> positions = new ArrayList<>(pageSize);
+        List<Integer> lengths = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            String content = chunks.get(i).getContent() == null ? "" : chunks.get(i).getContent();
+            page.append(content);
+            positions.add(chunks.get(i).getPosition());
+            lengths.add(content.length());
+        }
+
+        long nextUnloadedPosition = chunks.size() > CHUNK_PAGE_SIZE
+                ? chunks.get(CHUNK_PAGE_SIZE).getPosition()
+                : Long.MAX_VALUE;
+        this.chunkTracker.addLoadedChunks(positions, lengths, nextUnloadedPosition);
+        return page.toString();
+    }
+
+    private void showNote(Note loadedNote) {
+        this.note = loadedNote;
+        this.noteTitleEditText.setText(note.getTitle());
+        this.noteContentEditText.setText(note.getContent());
+        this.noteCreationDateTime.setText(NoteDateFormatter.format(note.getCreatedAt()));
+        this.selectedImagePath = note.getImagePath();
+        this.writtenWebUrl = note.getWebLink();
+
+        showImage(this.selectedImagePath);
+        selectNoteColor(note.getColor());
+
+        if (this.writtenWebUrl != null && !this.writtenWebUrl.trim().isEmpty()) {
+            textWebURL.setText(this.writtenWebUrl);
+            layoutWebURL.setVisibility(View.VISIBLE);
         }
     }
 
+    private void showImage(String imagePath) {
+        if (imagePath != null && !imagePath.trim().isEmpty()) {
+            Picasso.get().load(new File(imagePath)).into(imageView);
+            imageView.setVisibility(View.VISIBLE);
+            findViewById(R.id.imageRemoveImage).setVisibility(View.VISIBLE);
+        }
+    }
+
+    private void setEditingEnabled(boolean enabled) {
+        this.noteTitleEditText.setEnabled(enabled);
+        this.noteContentEditText.setEnabled(enabled);
+    }
+
     private void confirmDeleteDialog() {
         View dialogLayout = LayoutInflater.from(this).inflate(R.layout.layout_delete_note_dialog, findViewById(R.id.layoutDeleteNoteContainer));
 
@@ -221,25 +421,13 @@ public class NoteActivity extends AppCompatActivity {
         }
 
         dialogLayout.findViewById(R.id.textDeleteNote).setOnClickListener(v -> {
-            Intent intent = new Intent();
-            if (this.isNewNote) {
-                setResult(MainActivity.REQUEST_CODE_DELETE_NEW_NOTE, intent);
+            if (this.note == null) {
+                return;
+            }
+            this.noteAutoSaver.delete(result -> {
                 dialogDeleteNote.dismiss();
                 finish();
-            } else {
-                ExecutorService executor = Executors.newSingleThreadExecutor();
-                Handler handler = new Handler(Looper.getMainLooper());
-
-                executor.execute(() -> {
-                    NoteDatabase.getNoteDatabase(getApplicationContext()).noteDao().deleteNote(note);
-
-                    handler.post(() -> {
-                        setResult(MainActivity.REQUEST_CODE_DELETE_NOTE, intent);
-                        dialogDeleteNote.dismiss();
-                        finish();
-                    });
-                });
-            }
+            });
         });
         dialogLayout.findViewById(R.id.deleteNoteCancel).setOnClickListener(v -> dialogDeleteNote.dismiss());
 
@@ -247,44 +435,77 @@ public class NoteActivity extends AppCompatActivity {
     }
 
     private void saveNote() {
-        final String noteTitle = this.noteTitleEditText.getText().toString();
-        final String noteText = this.noteContentEditText.getText().toString();
-        final String noteDateTime = this.noteCreationDateTime.getText().toString();
-
-        this.note.setTitle(noteTitle);
-        this.note.setContent(noteText);
-        this.note.setCreationDateTime(noteDateTime);
-        this.note.setColor(this.selectedNoteColor);
-        this.note.setImagePath(this.selectedImagePath);
-        this.note.setWebLink(this.writtenWebUrl);
-
-        ExecutorService executor = Executors.newSingleThreadExecutor();
-        Handler handler = new Handler(Looper.getMainLooper());
-
-        executor.execute(() -> {
-            long newId = NoteDatabase.getNoteDatabase(getApplicationContext()).noteDao().insertNote(note);
-
-            handler.post(() -> {
-                Toast.makeText(this, "Saved", Toast.LENGTH_SHORT).show();
-
-                Intent intent = new Intent();
-                if (isNewNote) {
-                    setResult(MainActivity.REQUEST_CODE_ADD_NOTE, intent);
-                    note.setId(newId);
-                } else {
-                    setResult(MainActivity.REQUEST_CODE_UPDATE_NOTE, intent);
-                }
-            });
+        if (this.note == null) {
+            return;
+        }
+
+        this.noteAutoSaver.checkpoint();
+        Toast.makeText(this, "Saved", Toast.LENGTH_SHORT).show();
+    }
+
+    private void showHistoryDialog() {
+        if (this.note == null) {
+            return;
+        }
+        final long noteId = this.noteAutoSaver.getNoteId();
+        if (noteId == 0) {
+            Toast.makeText(this, R.string.no_history, Toast.LENGTH_SHORT).show();
+            return;
+        }
+
+        // The current text becomes a revision first, so restoring an older one can be undone.
+        this.noteAutoSaver.checkpoint();
+        NoteRepository.getInstance(this).getRevisions(noteId, revisions -> {
+            if (revisions == null) {
+                return;
+            }
+            if (revisions.isEmpty()) {
+                Toast.makeText(this, R.string.no_history, Toast.LENGTH_SHORT).show();
+                return;
+            }
+
+            String[] labels = new String[revisions.size()];
+            for (int i = 0; i < revisions.size(); i++) {
+                NoteRevisionSummary revision = revisions.get(i);
+                labels[i] = NoteDateFormatter.format(revision.getCreatedAt()) + "\n" + revision.getTitle();
+            }
+
+            new AlertDialog.Builder(this)
+                    .setTitle(R.string.note_history)
+                    .setItems(labels, (dialog, which) -> restoreRevision(noteId, revisions.get(which).getId()))
+                    .show();
+        });
+    }
+
+    // The revision is written back by the repository, chunk by chunk for a large note, and the editor then reloads
+    // the note like when it was opened, so a restored large note is paged in rather than set as one text.
+    private void restoreRevision(long noteId, long revisionId) {
+        this.noteAutoSaver.flush();
+        this.noteAutoSaver.discard();
+        if (this.chunkRequest != null) {
+            this.chunkRequest.cancel();
+            this.chunkRequest = null;
+        }
+        this.chunkTracker = null;
+        this.noteAutoSaver.setChunkTracker(null);
+        setEditingEnabled(false);
+
+        NoteRepository.getInstance(this).restoreRevision(noteId, revisionId, restored -> {
+            loadNote(noteId);
+            if (restored != null && restored) {
+                Toast.makeText(this, R.string.revision_restored, Toast.LENGTH_SHORT).show();
+            }
         });
     }
 
     private void setTitleIndicatorColor() {
         GradientDrawable gradientDrawable = (GradientDrawable) this.titleIndicator.getBackground();
-        gradientDrawable.setColor(Color.parseColor(this.selectedNoteColor));
+        gradientDrawable.setColor(this.selectedNoteColor);
     }
 
-    private void setImageViewsColor(String color, int chosenColor) {
+    private void setImageViewsColor(int color, int chosenColor) {
         this.selectedNoteColor = color;
+        this.noteAutoSaver.markDirty(NoteChanges.COLOR);
         final LinearLayout layoutOptions = findViewById(R.id.layoutOptions);
 
         final ImageView imageColorDefault = layoutOptions.findViewById(R.id.imageColorDefault);
@@ -348,23 +569,7 @@ public class NoteActivity extends AppCompatActivity {
         viewColorBlue.setOnClickListener(v -> setImageViewsColor(COLOR_BLUE, 3));
         viewColorBlack.setOnClickListener(v -> setImageViewsColor(COLOR_BLACK, 4));
 
-        switch (this.selectedNoteColor) {
-            case COLOR_DEFAULT:
-                viewColorDefault.performClick();
-                break;
-            case COLOR_YELLOW:
-                viewColorYellow.performClick();
-                break;
-            case COLOR_RED:
-                viewColorRed.performClick();
-                break;
-            case COLOR_BLUE:
-                viewColorBlue.performClick();
-                break;
-            case COLOR_BLACK:
-                viewColorBlack.performClick();
-                break;
-        }
+        selectNoteColor(this.selectedNoteColor);
 
 
         layoutOptions.findViewById(R.id.layoutAddImage).setOnClickListener(v -> {
@@ -386,6 +591,28 @@ public class NoteActivity extends AppCompatActivity {
         layoutOptions.findViewById(R.id.layoutAddNotification).setOnClickListener(v -> showDatePicker());
     }
 
+    private void selectNoteColor(int color) {
+        final LinearLayout layoutOptions = findViewById(R.id.layoutOptions);
+
+        switch (color) {
+            case COLOR_DEFAULT:
+                layoutOptions.findViewById(R.id.viewColorDefault).performClick();
+                break;
+            case COLOR_YELLOW:
+                layoutOptions.findViewById(R.id.viewColorYellow).performClick();
+                break;
+            case COLOR_RED:
+                layoutOptions.findViewById(R.id.viewColorRed).performClick();
+                break;
+            case COLOR_BLUE:
+                layoutOptions.findViewById(R.id.viewColorBlue).performClick();
+                break;
+            case COLOR_BLACK:
+                layoutOptions.findViewById(R.id.viewColorBlack).performClick();
+                break;
+        }
+    }
+
     @SuppressLint("QueryPermissionsNeeded")
     private void selectImage() {
         Intent intent = new Intent(Intent.ACTION_PICK, MediaStore.Images.Media.EXTERNAL_CONTENT_URI);
@@ -418,6 +645,7 @@ public class NoteActivity extends AppCompatActivity {
                 this.writtenWebUrl = inputUrl.getText().toString();
                 textWebURL.setText(this.writtenWebUrl);
                 layoutWebURL.setVisibility(View.VISIBLE);
+                this.noteAutoSaver.markDirty(NoteChanges.WEB_LINK);
 
                 dialogAddUrl.dismiss();
             }
@@ -459,27 +687,10 @@ public class NoteActivity extends AppCompatActivity {
     }
 
     private void setAlarm() {
-        AlarmReceiver.setNotificationTitle(note.getTitle());
-        AlarmReceiver.setNotificationContent(note.getContent());
-
-        Intent intent = new Intent(NoteActivity.this, AlarmReceiver.class);
-
-        PendingIntent pendingIntent = PendingIntent.getBroadcast(NoteActivity.this, 0, intent, 0);
-        AlarmManager alarmManager = (AlarmManager) getSystemService(ALARM_SERVICE);
-
-        alarmManager.set(AlarmManager.RTC_WAKEUP, calendar.getTimeInMillis(), pendingIntent);
-    }
-
-    private void createNotificationChannel() {
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-            CharSequence name = "noteNotificationReminderChannel";
-            String description = "Channel for note notifications";
-            int importance = NotificationManager.IMPORTANCE_HIGH;
-            NotificationChannel channel = new NotificationChannel("noteNotification", name, importance);
-            channel.setDescription(description);
-
-            NotificationManager notificationManager = getSystemService(NotificationManager.class);
-            notificationManager.createNotificationChannel(channel);
-        }
+        this.noteAutoSaver.setReminder(calendar.getTimeInMillis(), isSet -> {
+            if (isSet != null && !isSet) {
+                Toast.makeText(this, R.string.reminder_needs_note, Toast.LENGTH_SHORT).show();
+            }
+        });
     }
-}
\ No newline at end of file
+}
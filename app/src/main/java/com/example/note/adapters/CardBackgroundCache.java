@@ -0,0 +1,50 @@
+package com.example.note.adapters;
+
+import android.graphics.drawable.Drawable;
+import android.graphics.drawable.GradientDrawable;
+import android.graphics.drawable.StateListDrawable;
+import android.util.SparseArray;
+
+// Builds the card background once per note color and hands out mutated copies of its constant state.
+class CardBackgroundCache {
+
+    private static final float CORNER_RADIUS = 43;
+    private static final int PRESSED_COLOR = 0xFFCCCCCC;
+    private static final int EXIT_FADE_DURATION = 400;
+    private static final int SELECTED_STROKE_WIDTH = 8;
+    private static final int SELECTED_STROKE_COLOR = 0xFFFFFFFF;
+
+    private final SparseArray<Drawable.ConstantState> backgroundStates = new SparseArray<>();
+
+    Drawable getBackground(int color) {
+        Drawable.ConstantState backgroundState = backgroundStates.get(color);
+        if (backgroundState == null) {
+            backgroundState = createBackground(color).getConstantState();
+            backgroundStates.put(color, backgroundState);
+        }
+        return backgroundState.newDrawable().mutate();
+    }
+
+    private static Drawable createBackground(int color) {
+        GradientDrawable gradientDrawable = new GradientDrawable();
+        gradientDrawable.setCornerRadius(CORNER_RADIUS);
+        gradientDrawable.setColor(color);
+
+        GradientDrawable gradientDrawableClick = new GradientDrawable();
+        gradientDrawableClick.setCornerRadius(CORNER_RADIUS);
+        gradientDrawableClick.setColor(PRESSED_COLOR);
+
+        GradientDrawable gradientDrawableSelected = new GradientDrawable();
+        gradientDrawableSelected.setCornerRadius(CORNER_RADIUS);
+        gradientDrawableSelected.setColor(color);
+        gradientDrawableSelected.setStroke(SELECTED_STROKE_WIDTH, SELECTED_STROKE_COLOR);
+
+        StateListDrawable background = new StateListDrawable();
+        background.setExitFadeDuration(EXIT_FADE_DURATION);
+
+        background.addState(new int[]{android.R.attr.state_pressed}, gradientDrawableClick);
+        background.addState(new int[]{android.R.attr.state_activated}, gradientDrawableSelected);
+        background.addState(new int[]{}, gradientDrawable);
+        return background;
+    }
+}
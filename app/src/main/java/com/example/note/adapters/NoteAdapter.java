@@ -1,136 +1,202 @@
 package com.example.note.adapters;
 
 import android.content.Context;
-import android.graphics.Color;
-import android.graphics.drawable.GradientDrawable;
-import android.graphics.drawable.StateListDrawable;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.view.animation.Animation;
 import android.view.animation.AnimationUtils;
-import android.widget.Filter;
-import android.widget.Filterable;
 import android.widget.LinearLayout;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AsyncListDiffer;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.note.R;
-import com.example.note.entities.Note;
+import com.example.note.diagnostics.ListDiagnostics;
+import com.example.note.entities.NoteSummary;
+import com.example.note.images.ThumbnailLoader;
 import com.example.note.listeners.NoteListener;
+import com.example.note.util.NoteDateFormatter;
 import com.makeramen.roundedimageview.RoundedImageView;
-import com.squareup.picasso.Picasso;
 
-import java.io.File;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
-public class NoteAdapter extends RecyclerView.Adapter<NoteAdapter.NoteViewHolder> implements Filterable {
-    public List<Note> notesBackup;
-    private final List<Note> notes;
+public class NoteAdapter extends RecyclerView.Adapter<NoteAdapter.NoteViewHolder> {
+    private static final Object SELECTION_PAYLOAD = new Object();
+    private static final int TEXT_CARD = 0;
+    private static final int IMAGE_CARD = 1;
+
+    public List<NoteSummary> notesBackup;
+    private final NoteDiffCallback diffCallback = new NoteDiffCallback();
+    private final AsyncListDiffer<NoteSummary> differ = new AsyncListDiffer<>(this, diffCallback);
     private final Context context;
     private final NoteListener noteListener;
-    private int absolutePosition;
-
-    public NoteAdapter(Context context, List<Note> notes, NoteListener noteListener) {
+    private final ThumbnailLoader thumbnailLoader;
+    private final CardBackgroundCache cardBackgroundCache = new CardBackgroundCache();
+    private final int thumbnailWidth;
+    private final Set<Long> selectedIds = new HashSet<>();
+    private final ListDiagnostics listDiagnostics = ListDiagnostics.getInstance();
+    // Position of every shown note by id, rebuilt whenever the differ commits a new list.
+    private final Map<Long, Integer> positionsById = new HashMap<>();
+
+    public NoteAdapter(Context context, NoteListener noteListener) {
         this.context = context;
         this.noteListener = noteListener;
-        this.notes = notes;
-        this.notesBackup = new ArrayList<>(notes);
+        this.notesBackup = new ArrayList<>();
+        this.thumbnailLoader = ThumbnailLoader.getInstance(context);
+        this.thumbnailWidth = context.getResources().getDisplayMetrics().widthPixels / 2;
+        setHasStableIds(true);
+        differ.addListListener((previousList, currentList) -> indexPositions(currentList));
+    }
+
+    private void indexPositions(List<NoteSummary> notes) {
+        positionsById.clear();
+        for (int i = 0; i < notes.size(); i++) {
+            positionsById.put(notes.get(i).getId(), i);
+        }
     }
 
     @NonNull
     @Override
     public NoteViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        long startNanos = ListDiagnostics.now();
         LayoutInflater layoutInflater = LayoutInflater.from(context);
         View view = layoutInflater.inflate(R.layout.custom_card, parent, false);
 
-        return new NoteViewHolder(view);
+        NoteViewHolder holder = new NoteViewHolder(view, viewType);
+        listDiagnostics.record(ListDiagnostics.INFLATE_CARD, startNanos);
+        return holder;
     }
 
     @Override
-    public void onBindViewHolder(@NonNull NoteViewHolder holder, int position) {
-        holder.setNoteCard(notes.get(position));
+    public void onBindViewHolder(@NonNull NoteViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.isEmpty() || !onlySelectionChanged(payloads)) {
+            super.onBindViewHolder(holder, position, payloads);
+            return;
+        }
+        holder.setSelected(differ.getCurrentList().get(position));
+    }
+
+    private static boolean onlySelectionChanged(List<Object> payloads) {
+        for (Object payload : payloads) {
+            if (payload != SELECTION_PAYLOAD) {
+                return false;
+            }
+        }
+        return true;
+    }
 
-        holder.cardLayout.setOnClickListener(v -> {
-            absolutePosition = notesBackup.indexOf(notes.get(position));
-            noteListener.onNoteClicked(notes.get(position), position);
-        });
+    @Override
+    public void onBindViewHolder(@NonNull NoteViewHolder holder, int position) {
+        long startNanos = ListDiagnostics.now();
+        holder.setNoteCard(differ.getCurrentList().get(position));
+        listDiagnostics.record(holder.viewType == IMAGE_CARD ? ListDiagnostics.BIND_IMAGE_CARD : ListDiagnostics.BIND_TEXT_CARD, startNanos);
+    }
 
-        holder.cardLayout.setOnLongClickListener(v -> {
-            absolutePosition = notesBackup.indexOf(notes.get(position));
-            noteListener.onNoteLongClicked(notes.get(position), position, v);
-            return true;
-        });
+    private static boolean hasImage(NoteSummary note) {
+        return note.getImagePath() != null && !note.getImagePath().trim().isEmpty();
+    }
 
+    @Override
+    public void onViewRecycled(@NonNull NoteViewHolder holder) {
+        thumbnailLoader.cancel(holder.imageNote);
     }
 
     @Override
     public int getItemCount() {
-        return notes.size();
+        return differ.getCurrentList().size();
     }
 
     @Override
     public int getItemViewType(int position) {
-        return position;
+        return hasImage(differ.getCurrentList().get(position)) ? IMAGE_CARD : TEXT_CARD;
     }
 
     @Override
-    public Filter getFilter() {
-        return noteFilter;
-    }
-
-    private final Filter noteFilter = new Filter() {
-        @Override
-        protected FilterResults performFiltering(CharSequence constraint) {
-            List<Note> filteredList = new ArrayList<>();
-
-            if (constraint == null || constraint.length() == 0) {
-                filteredList.addAll(notesBackup);
-            } else {
-                String filterPattern = constraint.toString().toLowerCase().trim();
-                for (Note note : notesBackup) {
-                    if (note.getTitle().toLowerCase().contains(filterPattern) ||
-                            note.getContent().toLowerCase().contains(filterPattern)) {
-                        filteredList.add(note);
-                    }
-                }
-            }
-            FilterResults results = new FilterResults();
-            results.values = filteredList;
+    public long getItemId(int position) {
+        return differ.getCurrentList().get(position).getId();
+    }
+
+    public void showAllNotes() {
+        differ.submitList(new ArrayList<>(notesBackup));
+    }
+
+    public void showSearchResults(List<NoteSummary> results) {
+        differ.submitList(results);
+    }
 
-            return results;
+    public void setNotes(List<NoteSummary> notes) {
+        notesBackup = new ArrayList<>(notes);
+    }
+
+    // Replaces the changed notes by id, adds the new ones and, when windowIds is given, drops the notes from
+    // oldestId up that aren't in it. Returns the position of the first note that differs, or -1 if none does.
+    public int applyWindowChanges(long oldestId, List<NoteSummary> changedNotes, List<Long> windowIds) {
+        Map<Long, NoteSummary> changedById = new HashMap<>();
+        for (NoteSummary note : changedNotes) {
+            changedById.put(note.getId(), note);
+        }
+        Set<Long> remainingIds = windowIds == null ? null : new HashSet<>(windowIds);
+
+        List<NoteSummary> loadedNotes = new ArrayList<>(notesBackup.size() + changedNotes.size());
+        for (NoteSummary note : notesBackup) {
+            if (remainingIds != null && note.getId() >= oldestId && !remainingIds.contains(note.getId())) {
+                continue;
+            }
+            NoteSummary changedNote = changedById.remove(note.getId());
+            loadedNotes.add(changedNote == null ? note : changedNote);
+        }
+        if (!changedById.isEmpty()) {
+            loadedNotes.addAll(changedById.values());
+            Collections.sort(loadedNotes, (first, second) -> Long.compare(second.getId(), first.getId()));
         }
 
-        @Override
-        protected void publishResults(CharSequence constraint, FilterResults results) {
-            notes.clear();
-            notes.addAll((List<Note>) results.values);
-            notifyDataSetChanged();
+        List<NoteSummary> previousNotes = notesBackup;
+        notesBackup = loadedNotes;
+        for (int i = 0; i < Math.min(previousNotes.size(), loadedNotes.size()); i++) {
+            if (!diffCallback.areItemsTheSame(previousNotes.get(i), loadedNotes.get(i))
+                    || !diffCallback.areContentsTheSame(previousNotes.get(i), loadedNotes.get(i))) {
+                return i;
+            }
         }
-    };
+        return previousNotes.size() == loadedNotes.size() ? -1 : Math.min(previousNotes.size(), loadedNotes.size());
+    }
 
-    public void deleteNote(int position) {
-        notesBackup.remove(absolutePosition);
-        notes.remove(position);
+    public void appendNotes(List<NoteSummary> page) {
+        List<NoteSummary> loadedNotes = new ArrayList<>(notesBackup);
+        loadedNotes.addAll(page);
+        notesBackup = loadedNotes;
+    }
 
-        notifyItemRemoved(position);
+    public void toggleSelection(long id) {
+        if (!selectedIds.remove(id)) {
+            selectedIds.add(id);
+        }
+        Integer position = positionsById.get(id);
+        if (position != null) {
+            notifyItemChanged(position, SELECTION_PAYLOAD);
+        }
     }
 
-    public void updateNote(int position, List<Note> notesFromDb) {
-        Note changedNote = notesFromDb.get(absolutePosition);
-        notesBackup.set(absolutePosition, changedNote);
-        notes.set(position, changedNote);
+    public void clearSelection() {
+        selectedIds.clear();
+        notifyItemRangeChanged(0, getItemCount(), SELECTION_PAYLOAD);
+    }
 
-        notifyItemChanged(position);
+    public List<Long> getSelectedIds() {
+        return new ArrayList<>(selectedIds);
     }
 
-    public void addNote(int position, Note note) {
-        notesBackup.add(0, note);
-        notes.add(0, note);
-        notifyItemInserted(position);
+    public int getSelectedCount() {
+        return selectedIds.size();
     }
 
     public boolean thereAreNoNotes() {
@@ -144,9 +210,13 @@ public class NoteAdapter extends RecyclerView.Adapter<NoteAdapter.NoteViewHolder
 
         private final LinearLayout cardLayout;
         private final RoundedImageView imageNote;
+        private final int viewType;
+        private int boundColor;
 
-        NoteViewHolder(@NonNull View itemView) {
+        // Listeners are set once per holder and look the note up by the holder's current position.
+        NoteViewHolder(@NonNull View itemView, int viewType) {
             super(itemView);
+            this.viewType = viewType;
             noteTitleText = itemView.findViewById(R.id.noteTitle);
             noteContentText = itemView.findViewById(R.id.noteContent);
             noteCreationDateTimeText = itemView.findViewById(R.id.noteCreationDateTime);
@@ -155,36 +225,50 @@ public class NoteAdapter extends RecyclerView.Adapter<NoteAdapter.NoteViewHolder
 
             Animation translateAnim = AnimationUtils.loadAnimation(context, R.anim.translate_anim);
             cardLayout.setAnimation(translateAnim);
-        }
-
-        void setNoteCard(Note note) {
-            noteTitleText.setText(note.getTitle());
-            noteContentText.setText(note.getContent());
-            noteCreationDateTimeText.setText(note.getCreationDateTime());
+            imageNote.setVisibility(viewType == IMAGE_CARD ? View.VISIBLE : View.GONE);
 
-            GradientDrawable gradientDrawable = new GradientDrawable();
-            gradientDrawable.setCornerRadius(43);
-            gradientDrawable.setColor(Color.parseColor(note.getColor()));
-
-            GradientDrawable gradientDrawableClick = new GradientDrawable();
-            gradientDrawableClick.setCornerRadius(43);
-            gradientDrawableClick.setColor(Color.parseColor("#CCCCCC"));
+            cardLayout.setOnClickListener(v -> {
+                int position = getBindingAdapterPosition();
+                if (position == RecyclerView.NO_POSITION) {
+                    return;
+                }
+                noteListener.onNoteClicked(differ.getCurrentList().get(position));
+            });
 
-            StateListDrawable res = new StateListDrawable();
-            res.setExitFadeDuration(400);
+            cardLayout.setOnLongClickListener(v -> {
+                int position = getBindingAdapterPosition();
+                if (position == RecyclerView.NO_POSITION) {
+                    return false;
+                }
+                noteListener.onNoteLongClicked(differ.getCurrentList().get(position), v);
+                return true;
+            });
+        }
 
-            res.addState(new int[]{android.R.attr.state_pressed}, gradientDrawableClick);
-            res.addState(new int[]{}, gradientDrawable);
-            cardLayout.setBackground(res);
+        void setNoteCard(NoteSummary note) {
+            noteTitleText.setText(note.getTitle());
+            noteContentText.setText(note.getPreview());
+            noteCreationDateTimeText.setText(NoteDateFormatter.format(note.getCreatedAt()));
+            setSelected(note);
+
+            if (cardLayout.getBackground() == null || boundColor != note.getColor()) {
+                long startNanos = ListDiagnostics.now();
+                cardLayout.setBackground(cardBackgroundCache.getBackground(note.getColor()));
+                boundColor = note.getColor();
+                listDiagnostics.record(ListDiagnostics.BUILD_CARD_BACKGROUND, startNanos);
+            }
 
-            if (note.getImagePath() != null && !note.getImagePath().trim().isEmpty()) {
-                Picasso.get().load(new File(note.getImagePath())).resize(800, 0).into(imageNote);
-                imageNote.setVisibility(View.VISIBLE);
-            } else {
-                imageNote.setVisibility(View.GONE);
+            if (viewType == IMAGE_CARD) {
+                long startNanos = ListDiagnostics.now();
+                thumbnailLoader.load(note.getImagePath(), thumbnailWidth, imageNote);
+                listDiagnostics.record(ListDiagnostics.REQUEST_THUMBNAIL, startNanos);
             }
 
         }
 
+        void setSelected(NoteSummary note) {
+            cardLayout.setActivated(selectedIds.contains(note.getId()));
+        }
+
     }
 }
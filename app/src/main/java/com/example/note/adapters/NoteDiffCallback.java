@@ -0,0 +1,26 @@
+package com.example.note.adapters;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+
+import com.example.note.entities.NoteSummary;
+
+import java.util.Objects;
+
+public class NoteDiffCallback extends DiffUtil.ItemCallback<NoteSummary> {
+
+    @Override
+    public boolean areItemsTheSame(@NonNull NoteSummary oldNote, @NonNull NoteSummary newNote) {
+        return oldNote.getId() == newNote.getId();
+    }
+
+    @Override
+    public boolean areContentsTheSame(@NonNull NoteSummary oldNote, @NonNull NoteSummary newNote) {
+        return Objects.equals(oldNote.getTitle(), newNote.getTitle())
+                && Objects.equals(oldNote.getPreview(), newNote.getPreview())
+                && oldNote.getCreatedAt() == newNote.getCreatedAt()
+                && oldNote.getUpdatedAt() == newNote.getUpdatedAt()
+                && oldNote.getColor() == newNote.getColor()
+                && Objects.equals(oldNote.getImagePath(), newNote.getImagePath());
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.note.backup;
+
+// How many notes an import added, and what stopped it if it didn't finish. Every batch is committed on its own, so
+// the notes imported before a failure stay imported.
+public class ImportResult {
+    private int importedNotes;
+    private Exception failure;
+
+    void addImportedNotes(int count) {
+        importedNotes += count;
+    }
+
+    void setFailure(Exception failure) {
+        this.failure = failure;
+    }
+
+    public int getImportedNotes() {
+        return importedNotes;
+    }
+
+    // Null when the whole backup was imported.
+    public Exception getFailure() {
+        return failure;
+    }
+
+    public boolean isComplete() {
+        return failure == null;
+    }
+}
@@ -0,0 +1,229 @@
+package com.example.note.backup;
+
+import com.example.note.dao.NoteDao;
+import com.example.note.entities.Note;
+import com.example.note.entities.NoteSummary;
+import com.example.note.util.NoteColors;
+import com.example.note.util.NotePreview;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+// Backups are a zip holding notes.jsonl, one JSON note per line, followed by an images/<note id> entry for every
+// note that has an image. Both directions walk the notes a page at a time, so memory use doesn't grow with the
+// number of notes.
+public class NoteBackup {
+
+    static final String NOTES_ENTRY = "notes.jsonl";
+    static final String IMAGES_DIRECTORY = "images/";
+
+    private static final int PAGE_SIZE = 200;
+    private static final int INSERT_BATCH_SIZE = 500;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final NoteDao noteDao;
+    private final File imagesDir;
+
+    // Inserts a batch of imported notes. The repository runs each batch as a write of its own, so other writes
+    // don't wait for the whole import.
+    public interface BatchWriter {
+        void insert(List<Note> batch) throws Exception;
+    }
+
+    public NoteBackup(NoteDao noteDao, File imagesDir) {
+        this.noteDao = noteDao;
+        this.imagesDir = imagesDir;
+    }
+
+    public int exportNotes(OutputStream outputStream) throws IOException, JSONException {
+        int exportedNotes = 0;
+
+        try (ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(outputStream, BUFFER_SIZE))) {
+            zip.putNextEntry(new ZipEntry(NOTES_ENTRY));
+            Writer writer = new BufferedWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8), BUFFER_SIZE);
+
+            long afterId = 0;
+            List<Note> page;
+            do {
+                page = noteDao.getNotesAfter(afterId, PAGE_SIZE);
+                for (Note note : page) {
+                    note.setContent(noteDao.getFullContent(note));
+                    writer.write(toJson(note).toString());
+                    writer.write('\n');
+                    afterId = note.getId();
+                }
+                exportedNotes += page.size();
+            } while (page.size() == PAGE_SIZE);
+
+            writer.flush();
+            zip.closeEntry();
+
+            // Images are already compressed; deflating them again only costs time.
+            zip.setLevel(Deflater.NO_COMPRESSION);
+            byte[] buffer = new byte[BUFFER_SIZE];
+
+            afterId = 0;
+            List<NoteSummary> notesWithImages;
+            do {
+                notesWithImages = noteDao.getNotesWithImagesAfter(afterId, PAGE_SIZE);
+                for (NoteSummary note : notesWithImages) {
+                    afterId = note.getId();
+
+                    File image = new File(note.getImagePath());
+                    if (!image.isFile()) {
+                        continue;
+                    }
+                    zip.putNextEntry(new ZipEntry(imageEntryName(note.getId())));
+                    try (InputStream imageInput = new FileInputStream(image)) {
+                        copy(imageInput, zip, buffer);
+                    }
+                    zip.closeEntry();
+                }
+            } while (notesWithImages.size() == PAGE_SIZE);
+        }
+        return exportedNotes;
+    }
+
+    // Imported notes get new ids, so restoring into a non-empty database adds to it rather than overwriting.
+    // Doesn't throw: a failure stops the import, and the result tells how many notes were added before it.
+    public ImportResult importNotes(InputStream inputStream, BatchWriter batchWriter) {
+        final String importPrefix = System.currentTimeMillis() + "-";
+        ImportResult result = new ImportResult();
+
+        try (ZipInputStream zip = new ZipInputStream(new BufferedInputStream(inputStream, BUFFER_SIZE))) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                if (entry.getName().equals(NOTES_ENTRY)) {
+                    importNotesEntry(zip, importPrefix, batchWriter, result);
+                } else if (entry.getName().startsWith(IMAGES_DIRECTORY)) {
+                    importImageEntry(zip, entry.getName(), importPrefix, buffer);
+                }
+                zip.closeEntry();
+            }
+        } catch (Exception exception) {
+            result.setFailure(exception);
+        }
+        return result;
+    }
+
+    private void importNotesEntry(InputStream entryInput, String importPrefix, BatchWriter batchWriter,
+                                  ImportResult result) throws Exception {
+        // Not closed: closing the reader would close the whole zip stream.
+        BufferedReader reader = new BufferedReader(new InputStreamReader(entryInput, StandardCharsets.UTF_8), BUFFER_SIZE);
+
+        List<Note> batch = new ArrayList<>(INSERT_BATCH_SIZE);
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            batch.add(fromJson(new JSONObject(line), importPrefix));
+
+            if (batch.size() == INSERT_BATCH_SIZE) {
+                batchWriter.insert(batch);
+                result.addImportedNotes(batch.size());
+                batch = new ArrayList<>(INSERT_BATCH_SIZE);
+            }
+        }
+        if (!batch.isEmpty()) {
+            batchWriter.insert(batch);
+            result.addImportedNotes(batch.size());
+        }
+    }
+
+    private void importImageEntry(InputStream entryInput, String entryName, String importPrefix, byte[] buffer) throws IOException {
+        File image = importedImageFile(entryName, importPrefix);
+        if (image == null) {
+            return;
+        }
+        if (!imagesDir.isDirectory() && !imagesDir.mkdirs()) {
+            throw new IOException("Cannot create " + imagesDir);
+        }
+        try (OutputStream imageOutput = new FileOutputStream(image)) {
+            copy(entryInput, imageOutput, buffer);
+        }
+    }
+
+    // Entries are named after the exported note id; anything else is ignored rather than used as a path.
+    private File importedImageFile(String entryName, String importPrefix) {
+        String noteId = entryName.substring(IMAGES_DIRECTORY.length());
+        try {
+            Long.parseLong(noteId);
+        } catch (NumberFormatException exception) {
+            return null;
+        }
+        return new File(imagesDir, importPrefix + noteId);
+    }
+
+    private static String imageEntryName(long noteId) {
+        return IMAGES_DIRECTORY + noteId;
+    }
+
+    private static JSONObject toJson(Note note) throws JSONException {
+        JSONObject json = new JSONObject();
+        json.put("id", note.getId());
+        json.put("title", note.getTitle());
+        json.put("content", note.getContent());
+        json.put("createdAt", note.getCreatedAt());
+        json.put("updatedAt", note.getUpdatedAt());
+        json.put("color", note.getColor());
+        json.put("link", note.getLink());
+        json.put("webLink", note.getWebLink());
+
+        if (note.getImagePath() != null && new File(note.getImagePath()).isFile()) {
+            json.put("image", imageEntryName(note.getId()));
+        }
+        return json;
+    }
+
+    private Note fromJson(JSONObject json, String importPrefix) {
+        Note note = new Note();
+        note.setTitle(json.optString("title", null));
+        note.setContent(json.optString("content", null));
+        note.setPreview(NotePreview.of(note.getContent()));
+        note.setCreatedAt(json.optLong("createdAt"));
+        note.setUpdatedAt(json.optLong("updatedAt"));
+        note.setColor(json.optInt("color", NoteColors.DEFAULT));
+        note.setLink(json.optString("link", null));
+        note.setWebLink(json.optString("webLink", null));
+
+        String imageEntry = json.optString("image", null);
+        if (imageEntry != null && imageEntry.startsWith(IMAGES_DIRECTORY)) {
+            File image = importedImageFile(imageEntry, importPrefix);
+            if (image != null) {
+                note.setImagePath(image.getAbsolutePath());
+            }
+        }
+        return note;
+    }
+
+    private static void copy(InputStream input, OutputStream output, byte[] buffer) throws IOException {
+        int read;
+        while ((read = input.read(buffer)) != -1) {
+            output.write(buffer, 0, read);
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.example.note.chunks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Follows how edits in the editor land on the stored chunks of a large note, so a save rewrites only the chunks
+// that were touched. Chunks are ordered by position; positions start POSITION_GAP apart, which leaves room to
+// split a chunk that grew too long without renumbering the chunks after it. Only the chunks loaded into the
+// editor so far are tracked; the editor text is always those chunks, in order.
+public class ChunkTracker {
+
+    public static final int CHUNK_SIZE = 16 * 1024;
+    // Shorter content is stored inline in notes.content; longer content is split into chunks.
+    public static final int CHUNKING_THRESHOLD = 2 * CHUNK_SIZE;
+    public static final long POSITION_GAP = 1L << 20;
+
+    private static final int MAX_CHUNK_LENGTH = 2 * CHUNK_SIZE;
+
+    public static class ChunkWrite {
+        private final long position;
+        private final int start;
+        private final int end;
+
+        ChunkWrite(long position, int start, int end) {
+            this.position = position;
+            this.start = start;
+            this.end = end;
+        }
+
+        public long getPosition() {
+            return position;
+        }
+
+        public int getStart() {
+            return start;
+        }
+
+        public int getEnd() {
+            return end;
+        }
+    }
+
+    // Dirty chunks as ranges of the editor text, and the positions of chunks that became empty.
+    public static class Changes {
+        private final List<ChunkWrite> writes;
+        private final List<Long> deletedPositions;
+
+        Changes(List<ChunkWrite> writes, List<Long> deletedPositions) {
+            this.writes = writes;
+            this.deletedPositions = deletedPositions;
+        }
+
+        public List<ChunkWrite> getWrites() {
+            return writes;
+        }
+
+        public List<Long> getDeletedPositions() {
+            return deletedPositions;
+        }
+
+        public boolean isEmpty() {
+            return writes.isEmpty() && deletedPositions.isEmpty();
+        }
+    }
+
+    private static class Chunk {
+        long position;
+        int length;
+        boolean dirty;
+
+        Chunk(long position, int length, boolean dirty) {
+            this.position = position;
+            this.length = length;
+            this.dirty = dirty;
+        }
+    }
+
+    private final List<Chunk> chunks = new ArrayList<>();
+    private final List<Long> deletedPositions = new ArrayList<>();
+    private long nextUnloadedPosition = Long.MAX_VALUE;
+
+    public static boolean needsChunks(CharSequence content) {
+        return content != null && content.length() > CHUNKING_THRESHOLD;
+    }
+
+    public static long positionOf(int chunkIndex) {
+        return chunkIndex * POSITION_GAP;
+    }
+
+    // End offsets of CHUNK_SIZE pieces of text, moved back by one where they would split a surrogate pair.
+    public static List<Integer> split(CharSequence text) {
+        List<Integer> ends = new ArrayList<>();
+        int start = 0;
+        while (start < text.length()) {
+            int end = Math.min(start + CHUNK_SIZE, text.length());
+            if (end < text.length() && Character.isHighSurrogate(text.charAt(end - 1))) {
+                end--;
+            }
+            ends.add(end);
+            start = end;
+        }
+        return ends;
+    }
+
+    // A tracker for text that was just stored whole, as split() and positionOf() lay it out.
+    public static ChunkTracker forStoredText(CharSequence text) {
+        ChunkTracker tracker = new ChunkTracker();
+        int start = 0;
+        List<Integer> ends = split(text);
+        for (int i = 0; i < ends.size(); i++) {
+            tracker.chunks.add(new Chunk(positionOf(i), ends.get(i) - start, false));
+            start = ends.get(i);
+        }
+        return tracker;
+    }
+
+    // Chunks appended to the editor text. nextUnloadedPosition is Long.MAX_VALUE once the last chunk is loaded.
+    public void addLoadedChunks(List<Long> positions, List<Integer> lengths, long nextUnloadedPosition) {
+        for (int i = 0; i < positions.size(); i++) {
+            chunks.add(new Chunk(positions.get(i), lengths.get(i), false));
+        }
+        this.nextUnloadedPosition = nextUnloadedPosition;
+    }
+
+    public boolean hasUnloadedChunks() {
+        return nextUnloadedPosition != Long.MAX_VALUE;
+    }
+
+    public long getNextUnloadedPosition() {
+        return nextUnloadedPosition;
+    }
+
+    // Mirrors TextWatcher.onTextChanged: before chars at start were replaced by count new ones.
+    public void onTextChanged(int start, int before, int count) {
+        if (chunks.isEmpty()) {
+            chunks.add(new Chunk(hasUnloadedChunks() ? nextUnloadedPosition - POSITION_GAP : 0, 0, true));
+        }
+
+        int index = 0;
+        int offset = 0;
+        while (index < chunks.size() - 1 && offset + chunks.get(index).length <= start) {
+            offset += chunks.get(index).length;
+            index++;
+        }
+
+        Chunk chunk = chunks.get(index);
+        int removedFromChunk = Math.min(before, chunk.length - (start - offset));
+        chunk.length += count - removedFromChunk;
+        chunk.dirty = true;
+
+        int remaining = before - removedFromChunk;
+        for (int i = index + 1; remaining > 0 && i < chunks.size(); i++) {
+            Chunk next = chunks.get(i);
+            int removed = Math.min(remaining, next.length);
+            next.length -= removed;
+            next.dirty = true;
+            remaining -= removed;
+        }
+    }
+
+    // Collects the chunks to write since the last call. text is the current editor text.
+    public Changes takeChanges(CharSequence text) {
+        for (int i = chunks.size() - 1; i >= 0; i--) {
+            if (chunks.get(i).length == 0) {
+                deletedPositions.add(chunks.remove(i).position);
+            }
+        }
+
+        int offset = 0;
+        for (int i = 0; i < chunks.size(); i++) {
+            int length = chunks.get(i).length;
+            if (chunks.get(i).dirty && length > MAX_CHUNK_LENGTH) {
+                i += splitChunk(i, text.subSequence(offset, offset + length)) - 1;
+            }
+            offset += length;
+        }
+
+        List<ChunkWrite> writes = new ArrayList<>();
+        offset = 0;
+        for (Chunk chunk : chunks) {
+            if (chunk.dirty) {
+                writes.add(new ChunkWrite(chunk.position, offset, offset + chunk.length));
+                chunk.dirty = false;
+            }
+            offset += chunk.length;
+        }
+
+        Changes changes = new Changes(writes, new ArrayList<>(deletedPositions));
+        deletedPositions.clear();
+        return changes;
+    }
+
+    // Replaces chunk i with CHUNK_SIZE pieces spread over the positions up to the next chunk, and returns the
+    // number of pieces. A chunk whose neighbours left no room between their positions stays in one piece.
+    private int splitChunk(int index, CharSequence chunkText) {
+        Chunk chunk = chunks.get(index);
+        List<Integer> ends = split(chunkText);
+
+        long nextPosition;
+        if (index + 1 < chunks.size()) {
+            nextPosition = chunks.get(index + 1).position;
+        } else if (hasUnloadedChunks()) {
+            nextPosition = nextUnloadedPosition;
+        } else {
+            nextPosition = chunk.position + ends.size() * POSITION_GAP;
+        }
+        long step = (nextPosition - chunk.position) / ends.size();
+        if (step < 1) {
+            return 1;
+        }
+
+        chunks.remove(index);
+        int start = 0;
+        for (int i = 0; i < ends.size(); i++) {
+            chunks.add(index + i, new Chunk(chunk.position + i * step, ends.get(i) - start, true));
+            start = ends.get(i);
+        }
+        return ends.size();
+    }
+}
@@ -1,25 +1,373 @@
 package com.example.note.dao;
 
 import androidx.room.Dao;
-import androidx.room.Delete;
 import androidx.room.Insert;
 import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
+import androidx.room.Transaction;
+import androidx.room.Update;
 
+import com.example.note.chunks.ChunkTracker;
+import com.example.note.entities.DueReminder;
 import com.example.note.entities.Note;
+import com.example.note.entities.NoteChunk;
+import com.example.note.entities.NoteReminder;
+import com.example.note.entities.NoteRevision;
+import com.example.note.entities.NoteRevisionChunk;
+import com.example.note.entities.NoteRevisionSummary;
+import com.example.note.entities.NoteSummary;
+import com.example.note.entities.NoteTrigram;
+import com.example.note.history.RevisionStore;
+import com.example.note.search.NoteMatch;
+import com.example.note.search.NoteText;
+import com.example.note.search.SearchQueries;
+import com.example.note.search.TrigramIndexer;
+import com.example.note.util.NotePreview;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 @Dao
-public interface NoteDao {
+public interface NoteDao extends RevisionStore {
+    // Stays well under SQLite's default limit of 999 bound parameters per statement.
+    int MAX_IDS_PER_STATEMENT = 500;
+    // Chunks read at a time when a whole chunked note has to be read.
+    int CHUNKS_PER_READ = 8;
+
     @Query("SELECT * FROM notes ORDER BY id DESC")
     List<Note> getAllNotes();
 
+    @Query("SELECT id, title, preview, color, imagePath, createdAt, updatedAt FROM notes ORDER BY id DESC LIMIT :limit")
+    List<NoteSummary> getFirstNotes(int limit);
+
+    @Query("SELECT id, title, preview, color, imagePath, createdAt, updatedAt FROM notes WHERE id < :beforeId ORDER BY id DESC LIMIT :limit")
+    List<NoteSummary> getNotesBefore(long beforeId, int limit);
+
+    @Query("SELECT id, title, preview, color, imagePath, createdAt, updatedAt FROM notes ORDER BY updatedAt DESC, id DESC LIMIT :limit")
+    List<NoteSummary> getRecentlyModifiedNotes(int limit);
+
+    @Query("SELECT id, title, preview, color, imagePath, createdAt, updatedAt FROM notes WHERE updatedAt < :beforeUpdatedAt OR (updatedAt = :beforeUpdatedAt AND id < :beforeId) ORDER BY updatedAt DESC, id DESC LIMIT :limit")
+    List<NoteSummary> getModifiedNotesBefore(long beforeUpdatedAt, long beforeId, int limit);
+
+    @Query("SELECT id, title, preview, color, imagePath, createdAt, updatedAt FROM notes WHERE createdAt BETWEEN :fromMillis AND :toMillis ORDER BY createdAt DESC")
+    List<NoteSummary> getNotesCreatedBetween(long fromMillis, long toMillis);
+
+    // The notes from oldestId up that were updated at or after since, or added after newestId.
+    @Query("SELECT id, title, preview, color, imagePath, createdAt, updatedAt FROM notes WHERE id >= :oldestId AND (updatedAt >= :since OR id > :newestId) ORDER BY id DESC")
+    List<NoteSummary> getNotesChangedSince(long oldestId, long newestId, long since);
+
+    @Query("SELECT COUNT(*) FROM notes WHERE id >= :oldestId")
+    int countNotesFrom(long oldestId);
+
+    @Query("SELECT id FROM notes WHERE id >= :oldestId ORDER BY id DESC")
+    List<Long> getNoteIdsFrom(long oldestId);
+
+    @Query("SELECT * FROM notes WHERE id > :afterId ORDER BY id LIMIT :limit")
+    List<Note> getNotesAfter(long afterId, int limit);
+
+    @Query("SELECT id, title, preview, color, imagePath, createdAt, updatedAt FROM notes WHERE id > :afterId AND imagePath IS NOT NULL AND imagePath != '' ORDER BY id LIMIT :limit")
+    List<NoteSummary> getNotesWithImagesAfter(long afterId, int limit);
+
+    @Query("SELECT * FROM notes WHERE id = :id")
+    Note getNoteById(long id);
+
+    @Query("SELECT id, title, preview, color, imagePath, createdAt, updatedAt FROM notes WHERE id IN (:ids)")
+    List<NoteSummary> getNotesByIds(List<Long> ids);
+
+    @Query(SearchQueries.SEARCH_NOTES)
+    List<NoteMatch> searchNotes(String matchQuery, int limit);
+
+    @Query(SearchQueries.SEARCH_NOTES_AMONG)
+    List<NoteMatch> searchNotesAmong(String matchQuery, List<Long> noteIds, int limit);
+
     @Insert(onConflict = OnConflictStrategy.REPLACE)
     long insertNote(Note note);
 
-    @Delete
-    void deleteNote(Note note);
+    @Insert
+    List<Long> insertNotes(List<Note> notes);
+
+    @Transaction
+    default void insertIndexedNotes(List<Note> notes) {
+        for (Note note : notes) {
+            insertIndexedNote(note);
+        }
+    }
+
+    // Content longer than ChunkTracker.CHUNKING_THRESHOLD goes to note_chunks, and notes.content keeps only the
+    // first chunk for the list preview; note_chunks_fts indexes the chunks.
+    @Transaction
+    default long insertIndexedNote(Note note) {
+        String content = note.getContent();
+        boolean chunked = ChunkTracker.needsChunks(content);
+        if (chunked) {
+            note.setChunked(true);
+            note.setContent(content.substring(0, ChunkTracker.split(content).get(0)));
+        }
+
+        long id = insertNote(note);
+        if (chunked) {
+            insertChunks(id, content);
+        }
+        updateTrigrams(id, TrigramIndexer.trigrams(note.getTitle(), content));
+        note.setContent(content);
+        return id;
+    }
+
+    @Transaction
+    default int updateIndexedNote(Note note) {
+        int updatedRows = updateNote(note);
+        storeContent(note.getId(), note.getContent(), note.getUpdatedAt());
+        reindexNote(note.getId());
+        return updatedRows;
+    }
+
+    @Update
+    int updateNote(Note note);
+
+    @Query("UPDATE notes SET title = :title, updatedAt = :updatedAt WHERE id = :id")
+    int updateTitle(long id, String title, long updatedAt);
+
+    @Query("UPDATE notes SET content = :content, preview = :preview, chunked = :chunked, updatedAt = :updatedAt WHERE id = :id")
+    int updateStoredContent(long id, String content, String preview, boolean chunked, long updatedAt);
+
+    // Chunks are never replaced with REPLACE: its implicit delete doesn't fire the note_chunks_fts delete trigger,
+    // and would leave the old text in the index.
+    @Insert
+    void insertChunkRows(List<NoteChunk> chunks);
+
+    @Update
+    int updateChunk(NoteChunk chunk);
+
+    @Transaction
+    default void writeChunks(List<NoteChunk> chunks) {
+        for (NoteChunk chunk : chunks) {
+            if (updateChunk(chunk) == 0) {
+                insertChunk(chunk);
+            }
+        }
+    }
+
+    @Query("DELETE FROM note_chunks WHERE noteId = :noteId AND position IN (:positions)")
+    void deleteChunks(long noteId, List<Long> positions);
+
+    @Query("DELETE FROM note_chunks WHERE noteId = :noteId")
+    void deleteAllChunks(long noteId);
+
+    // A negative limit loads every remaining chunk.
+    @Query("SELECT * FROM note_chunks WHERE noteId = :noteId AND position > :afterPosition ORDER BY position LIMIT :limit")
+    List<NoteChunk> getChunksAfter(long noteId, long afterPosition, int limit);
+
+    @Query("SELECT content FROM note_chunks WHERE noteId = :noteId ORDER BY position")
+    List<String> getChunkContents(long noteId);
+
+    @Query("SELECT position FROM note_chunks WHERE noteId = :noteId")
+    List<Long> getChunkPositions(long noteId);
+
+    // The chunks written since the note's last revision, or all of them with includeRevised, a page at a time.
+    @Query("SELECT * FROM note_chunks WHERE noteId = :noteId AND position > :afterPosition AND (revised = 0 OR :includeRevised) ORDER BY position LIMIT :limit")
+    List<NoteChunk> getChunksToRevise(long noteId, long afterPosition, boolean includeRevised, int limit);
+
+    @Query("UPDATE note_chunks SET revised = 1 WHERE noteId = :noteId AND revised = 0")
+    void markChunksRevised(long noteId);
+
+    @Insert
+    void insertChunk(NoteChunk chunk);
+
+    // Replaces the whole content of a note, chunking it or storing it inline depending on its length.
+    @Transaction
+    default void storeContent(long id, String content, long updatedAt) {
+        String storedContent = replaceChunks(id, content);
+        updateStoredContent(id, storedContent, NotePreview.of(storedContent), ChunkTracker.needsChunks(content), updatedAt);
+    }
+
+    // Replaces the chunks of a note with the content, chunked if it needs to be, and returns what notes.content
+    // keeps: the first chunk, or the whole content when it isn't chunked. The caller writes the notes row.
+    @Transaction
+    default String replaceChunks(long id, String content) {
+        deleteAllChunks(id);
+        if (!ChunkTracker.needsChunks(content)) {
+            return content;
+        }
+        insertChunks(id, content);
+        return content.substring(0, ChunkTracker.split(content).get(0));
+    }
+
+    // Writes only the chunks the editor changed and returns the first chunk, which notes.content keeps. The caller
+    // writes the notes row.
+    @Transaction
+    default String updateChunks(long id, List<NoteChunk> writes, List<Long> deletedPositions) {
+        for (int from = 0; from < deletedPositions.size(); from += MAX_IDS_PER_STATEMENT) {
+            deleteChunks(id, deletedPositions.subList(from, Math.min(from + MAX_IDS_PER_STATEMENT, deletedPositions.size())));
+        }
+        writeChunks(writes);
+
+        List<NoteChunk> firstChunks = getChunksAfter(id, Long.MIN_VALUE, 1);
+        return firstChunks.isEmpty() ? "" : firstChunks.get(0).getContent();
+    }
+
+    default void insertChunks(long id, String content) {
+        List<Integer> ends = ChunkTracker.split(content);
+        List<NoteChunk> chunks = new ArrayList<>(ends.size());
+        int start = 0;
+        for (int i = 0; i < ends.size(); i++) {
+            chunks.add(new NoteChunk(id, ChunkTracker.positionOf(i), content.substring(start, ends.get(i))));
+            start = ends.get(i);
+        }
+        insertChunkRows(chunks);
+    }
+
+    @Transaction
+    default String getFullContent(Note note) {
+        if (!note.isChunked()) {
+            return note.getContent();
+        }
+        StringBuilder content = new StringBuilder();
+        for (String chunk : getChunkContents(note.getId())) {
+            content.append(chunk);
+        }
+        return content.toString();
+    }
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertReminder(NoteReminder reminder);
+
+    @Query("SELECT MIN(dueAt) FROM note_reminders")
+    Long getNextReminderDueAt();
+
+    // The due time of the last reminder due by until; only asked when there is at least one.
+    @Query("SELECT MAX(dueAt) FROM note_reminders WHERE dueAt <= :until")
+    long getLastReminderDueAt(long until);
+
+    @Query("SELECT note_reminders.noteId, note_reminders.dueAt, notes.title, notes.preview FROM note_reminders INNER JOIN notes ON notes.id = note_reminders.noteId WHERE note_reminders.dueAt <= :now ORDER BY note_reminders.dueAt")
+    List<DueReminder> getDueReminders(long now);
+
+    @Query("DELETE FROM note_reminders WHERE dueAt <= :now")
+    void deleteDueReminders(long now);
+
+    @Query("DELETE FROM notes WHERE id = :id")
+    int deleteNoteById(long id);
+
+    @Query("SELECT trigram FROM note_trigrams WHERE noteId = :noteId")
+    List<Long> getTrigrams(long noteId);
+
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    void insertTrigrams(List<NoteTrigram> trigrams);
+
+    @Query("DELETE FROM note_trigrams WHERE noteId = :noteId AND trigram IN (:trigrams)")
+    void deleteTrigrams(long noteId, List<Long> trigrams);
+
+    // Notes sharing at least minShared of the given trigrams, those sharing the most first.
+    @Query("SELECT noteId FROM note_trigrams WHERE trigram IN (:trigrams) GROUP BY noteId HAVING COUNT(*) >= :minShared ORDER BY COUNT(*) DESC, noteId DESC LIMIT :limit")
+    List<Long> getTrigramCandidates(List<Long> trigrams, int minShared, int limit);
+
+    @Query("SELECT id, title, content, chunked FROM notes WHERE id IN (:ids)")
+    List<NoteText> getNoteTextsByIds(List<Long> ids);
+
+    // Brings the note's trigram rows in line with the trigrams of its text, touching only the ones that were added
+    // or removed. Takes ownership of the set.
+    @Transaction
+    default void updateTrigrams(long noteId, Set<Long> addedTrigrams) {
+        List<Long> removedTrigrams = new ArrayList<>();
+        for (Long trigram : getTrigrams(noteId)) {
+            if (!addedTrigrams.remove(trigram)) {
+                removedTrigrams.add(trigram);
+            }
+        }
+
+        for (int from = 0; from < removedTrigrams.size(); from += MAX_IDS_PER_STATEMENT) {
+            deleteTrigrams(noteId, removedTrigrams.subList(from, Math.min(from + MAX_IDS_PER_STATEMENT, removedTrigrams.size())));
+        }
+        if (!addedTrigrams.isEmpty()) {
+            List<NoteTrigram> rows = new ArrayList<>(addedTrigrams.size());
+            for (Long trigram : addedTrigrams) {
+                rows.add(new NoteTrigram(trigram, noteId));
+            }
+            insertTrigrams(rows);
+        }
+    }
+
+    // The trigrams of a chunked note are collected a few chunks at a time, so its text is never read whole.
+    @Transaction
+    default void reindexNote(long noteId) {
+        Note note = getNoteById(noteId);
+        if (note == null) {
+            return;
+        }
+        Set<Long> trigrams = TrigramIndexer.trigrams(note.getTitle(), note.getContent());
+        if (note.isChunked()) {
+            long afterPosition = Long.MIN_VALUE;
+            List<NoteChunk> chunks;
+            while (!(chunks = getChunksAfter(noteId, afterPosition, CHUNKS_PER_READ)).isEmpty()) {
+                for (NoteChunk chunk : chunks) {
+                    trigrams.addAll(TrigramIndexer.trigrams(chunk.getContent()));
+                    afterPosition = chunk.getPosition();
+                }
+            }
+        }
+        updateTrigrams(noteId, trigrams);
+    }
+
+    @Insert
+    long insertRevision(NoteRevision revision);
+
+    @Query("SELECT MAX(id) FROM note_revisions WHERE noteId = :noteId")
+    Long getLatestRevisionId(long noteId);
+
+    @Query("SELECT * FROM note_revisions WHERE noteId = :noteId AND id = :revisionId")
+    NoteRevision getRevision(long noteId, long revisionId);
+
+    @Query("SELECT id, createdAt, title FROM note_revisions WHERE noteId = :noteId ORDER BY id DESC")
+    List<NoteRevisionSummary> getRevisions(long noteId);
+
+    // The inline revisions from the last snapshot up to and including revisionId, oldest first.
+    @Query("SELECT * FROM note_revisions WHERE noteId = :noteId AND id <= :revisionId AND chunked = 0 "
+            + "AND id >= (SELECT MAX(id) FROM note_revisions WHERE noteId = :noteId AND id <= :revisionId AND chunked = 0 AND snapshot = 1) "
+            + "ORDER BY id")
+    List<NoteRevision> getRevisionChain(long noteId, long revisionId);
+
+    @Insert
+    void insertRevisionChunk(NoteRevisionChunk revisionChunk);
+
+    // Chunk chains only run through consecutive chunked revisions: they start after the last inline revision.
+    @Query("SELECT COALESCE(MAX(id), 0) FROM note_revisions WHERE noteId = :noteId AND id <= :revisionId AND chunked = 0")
+    long getChunkChainsStart(long noteId, long revisionId);
+
+    // The chunk positions the note had at revisionId, in order.
+    @Query("SELECT position FROM note_revision_chunks AS chunk WHERE noteId = :noteId AND revisionId > :chainsStart AND revisionId <= :revisionId AND deleted = 0 "
+            + "AND revisionId = (SELECT MAX(revisionId) FROM note_revision_chunks WHERE noteId = :noteId AND position = chunk.position AND revisionId > :chainsStart AND revisionId <= :revisionId) "
+            + "ORDER BY position")
+    List<Long> getRevisionChunkPositions(long noteId, long chainsStart, long revisionId);
+
+    // The rows of one chunk position from its last snapshot up to and including revisionId, oldest first.
+    @Query("SELECT * FROM note_revision_chunks WHERE noteId = :noteId AND position = :position AND revisionId <= :revisionId "
+            + "AND revisionId >= (SELECT MAX(revisionId) FROM note_revision_chunks WHERE noteId = :noteId AND position = :position AND revisionId > :chainsStart AND revisionId <= :revisionId AND snapshot = 1) "
+            + "ORDER BY revisionId")
+    List<NoteRevisionChunk> getRevisionChunkChain(long noteId, long position, long chainsStart, long revisionId);
+
+    @Query("DELETE FROM notes WHERE id IN (:ids)")
+    int deleteNotesByIds(List<Long> ids);
+
+    @Query("UPDATE notes SET color = :color, updatedAt = :updatedAt WHERE id IN (:ids)")
+    int updateColorByIds(List<Long> ids, int color, long updatedAt);
+
+    @Transaction
+    default int deleteNotes(List<Long> ids) {
+        int deletedRows = 0;
+        for (int from = 0; from < ids.size(); from += MAX_IDS_PER_STATEMENT) {
+            deletedRows += deleteNotesByIds(ids.subList(from, Math.min(from + MAX_IDS_PER_STATEMENT, ids.size())));
+        }
+        return deletedRows;
+    }
+
+    @Transaction
+    default int updateColors(List<Long> ids, int color, long updatedAt) {
+        int updatedRows = 0;
+        for (int from = 0; from < ids.size(); from += MAX_IDS_PER_STATEMENT) {
+            updatedRows += updateColorByIds(ids.subList(from, Math.min(from + MAX_IDS_PER_STATEMENT, ids.size())), color, updatedAt);
+        }
+        return updatedRows;
+    }
 
     @Query("DELETE FROM notes")
     void deleteAllNotes();
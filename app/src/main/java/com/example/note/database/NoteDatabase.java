@@ -2,14 +2,24 @@ package com.example.note.database;
 
 import android.content.Context;
 
+import androidx.annotation.NonNull;
 import androidx.room.Database;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
+import androidx.sqlite.db.SupportSQLiteDatabase;
 
 import com.example.note.dao.NoteDao;
+import com.example.note.diagnostics.DatabaseDiagnostics;
 import com.example.note.entities.Note;
+import com.example.note.entities.NoteChunk;
+import com.example.note.entities.NoteChunkFts;
+import com.example.note.entities.NoteFts;
+import com.example.note.entities.NoteReminder;
+import com.example.note.entities.NoteRevision;
+import com.example.note.entities.NoteRevisionChunk;
+import com.example.note.entities.NoteTrigram;
 
-@Database(entities = Note.class, version = 1, exportSchema = false)
+@Database(entities = {Note.class, NoteFts.class, NoteTrigram.class, NoteRevision.class, NoteChunk.class, NoteReminder.class, NoteRevisionChunk.class, NoteChunkFts.class}, version = 12, exportSchema = false)
 public abstract class NoteDatabase extends RoomDatabase {
 
     private static NoteDatabase notesDatabase;
@@ -20,7 +30,26 @@ public abstract class NoteDatabase extends RoomDatabase {
                     context,
                     NoteDatabase.class,
                     "note_db"
-            ).build();
+            ).addMigrations(
+                    NoteMigrations.MIGRATION_1_2,
+                    NoteMigrations.MIGRATION_2_3,
+                    NoteMigrations.MIGRATION_3_4,
+                    NoteMigrations.MIGRATION_4_5,
+                    NoteMigrations.MIGRATION_5_6,
+                    NoteMigrations.MIGRATION_6_7,
+                    NoteMigrations.MIGRATION_7_8,
+                    NoteMigrations.MIGRATION_8_9,
+                    NoteMigrations.MIGRATION_9_10,
+                    NoteMigrations.MIGRATION_10_11,
+                    NoteMigrations.MIGRATION_11_12)
+                    .addCallback(new Callback() {
+                        @Override
+                        public void onCreate(@NonNull SupportSQLiteDatabase database) {
+                            NoteMigrations.replaceRoomFtsTriggers(database);
+                        }
+                    })
+                    .setQueryCallback(DatabaseDiagnostics.getInstance()::onQuery, Runnable::run)
+                    .build();
         }
         return notesDatabase;
     }
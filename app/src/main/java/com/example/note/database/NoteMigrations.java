@@ -0,0 +1,287 @@
+package com.example.note.database;
+
+import android.database.Cursor;
+import android.graphics.Color;
+
+import androidx.annotation.NonNull;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteStatement;
+
+import com.example.note.chunks.ChunkTracker;
+import com.example.note.search.TrigramIndexer;
+import com.example.note.util.NoteDateFormatter;
+import com.example.note.util.NotePreview;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+public final class NoteMigrations {
+
+    private static final int DEFAULT_NOTE_COLOR = 0xFF444444;
+
+    private NoteMigrations() {
+    }
+
+    public static final Migration MIGRATION_1_2 = new Migration(1, 2) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS `notes_fts` USING FTS4(`title` TEXT, `content` TEXT, tokenize=unicode61, content=`notes`)");
+            createFtsTriggers(database);
+            database.execSQL("INSERT INTO `notes_fts`(`notes_fts`) VALUES ('rebuild')");
+        }
+    };
+
+    // Replaces the formatted creationDateTime string with createdAt/updatedAt epoch millis. SQLite on older
+    // devices cannot drop columns, so the table is rebuilt and the FTS triggers recreated on the new table.
+    public static final Migration MIGRATION_2_3 = new Migration(2, 3) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS `notes_new` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `title` TEXT, `content` TEXT, `createdAt` INTEGER NOT NULL, `updatedAt` INTEGER NOT NULL, `color` TEXT, `link` TEXT, `imagePath` TEXT, `webLink` TEXT)");
+            database.execSQL("INSERT INTO `notes_new` (`id`, `title`, `content`, `createdAt`, `updatedAt`, `color`, `link`, `imagePath`, `webLink`) "
+                    + "SELECT `id`, `title`, `content`, 0, 0, `color`, `link`, `imagePath`, `webLink` FROM `notes`");
+
+            SimpleDateFormat localFormat = new SimpleDateFormat(NoteDateFormatter.PATTERN, Locale.getDefault());
+            SimpleDateFormat englishFormat = new SimpleDateFormat(NoteDateFormatter.PATTERN, Locale.ENGLISH);
+            long migrationTime = System.currentTimeMillis();
+
+            SupportSQLiteStatement updateTimes = database.compileStatement("UPDATE `notes_new` SET `createdAt` = ?, `updatedAt` = ? WHERE `id` = ?");
+            try (Cursor cursor = database.query("SELECT `id`, `creationDateTime` FROM `notes`")) {
+                while (cursor.moveToNext()) {
+                    String creationDateTime = cursor.isNull(1) ? null : cursor.getString(1);
+                    long createdAt = parseCreationDateTime(creationDateTime, localFormat, englishFormat, migrationTime);
+
+                    updateTimes.bindLong(1, createdAt);
+                    updateTimes.bindLong(2, createdAt);
+                    updateTimes.bindLong(3, cursor.getLong(0));
+                    updateTimes.executeUpdateDelete();
+                }
+            }
+
+            replaceNotesTable(database);
+        }
+    };
+
+    // Stores note colors as packed ARGB ints instead of "#RRGGBB" strings. There are only a handful of
+    // distinct colors, so each one is parsed once and applied with a single UPDATE.
+    public static final Migration MIGRATION_3_4 = new Migration(3, 4) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS `notes_new` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `title` TEXT, `content` TEXT, `createdAt` INTEGER NOT NULL, `updatedAt` INTEGER NOT NULL, `color` INTEGER NOT NULL, `link` TEXT, `imagePath` TEXT, `webLink` TEXT)");
+            database.execSQL("INSERT INTO `notes_new` (`id`, `title`, `content`, `createdAt`, `updatedAt`, `color`, `link`, `imagePath`, `webLink`) "
+                    + "SELECT `id`, `title`, `content`, `createdAt`, `updatedAt`, " + DEFAULT_NOTE_COLOR + ", `link`, `imagePath`, `webLink` FROM `notes`");
+
+            SupportSQLiteStatement updateColor = database.compileStatement("UPDATE `notes_new` SET `color` = ? WHERE `id` IN (SELECT `id` FROM `notes` WHERE `color` = ?)");
+            try (Cursor cursor = database.query("SELECT DISTINCT `color` FROM `notes` WHERE `color` IS NOT NULL")) {
+                while (cursor.moveToNext()) {
+                    String color = cursor.getString(0);
+
+                    updateColor.bindLong(1, parseColor(color));
+                    updateColor.bindString(2, color);
+                    updateColor.executeUpdateDelete();
+                }
+            }
+
+            replaceNotesTable(database);
+        }
+    };
+
+    // Adds the stored list preview. The content doesn't change, so the FTS update triggers are dropped while
+    // the previews are filled in instead of reindexing every note.
+    public static final Migration MIGRATION_4_5 = new Migration(4, 5) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("ALTER TABLE `notes` ADD COLUMN `preview` TEXT");
+            database.execSQL("DROP TRIGGER IF EXISTS room_fts_content_sync_notes_fts_BEFORE_UPDATE");
+            database.execSQL("DROP TRIGGER IF EXISTS room_fts_content_sync_notes_fts_AFTER_UPDATE");
+            database.execSQL("UPDATE `notes` SET `preview` = substr(`content`, 1, " + NotePreview.MAX_LENGTH + ")");
+            createFtsTriggers(database);
+        }
+    };
+
+    // Adds the trigram index used for typo tolerant search and fills it from the existing notes.
+    public static final Migration MIGRATION_5_6 = new Migration(5, 6) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS `note_trigrams` (`trigram` INTEGER NOT NULL, `noteId` INTEGER NOT NULL, PRIMARY KEY(`trigram`, `noteId`), FOREIGN KEY(`noteId`) REFERENCES `notes`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE )");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_note_trigrams_noteId` ON `note_trigrams` (`noteId`)");
+
+            SupportSQLiteStatement insertTrigram = database.compileStatement("INSERT OR IGNORE INTO `note_trigrams` (`trigram`, `noteId`) VALUES (?, ?)");
+            try (Cursor cursor = database.query("SELECT `id`, `title`, `content` FROM `notes`")) {
+                while (cursor.moveToNext()) {
+                    long noteId = cursor.getLong(0);
+                    String title = cursor.isNull(1) ? null : cursor.getString(1);
+                    String content = cursor.isNull(2) ? null : cursor.getString(2);
+
+                    for (long trigram : TrigramIndexer.trigrams(title, content)) {
+                        insertTrigram.bindLong(1, trigram);
+                        insertTrigram.bindLong(2, noteId);
+                        insertTrigram.executeInsert();
+                    }
+                }
+            }
+        }
+    };
+
+    public static final Migration MIGRATION_6_7 = new Migration(6, 7) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS `note_revisions` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, `noteId` INTEGER NOT NULL, `createdAt` INTEGER NOT NULL, `title` TEXT, `snapshot` INTEGER NOT NULL, `prefixLength` INTEGER NOT NULL, `suffixLength` INTEGER NOT NULL, `insertedText` TEXT, FOREIGN KEY(`noteId`) REFERENCES `notes`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE )");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_note_revisions_noteId` ON `note_revisions` (`noteId`)");
+        }
+    };
+
+    public static final Migration MIGRATION_7_8 = new Migration(7, 8) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("ALTER TABLE `notes` ADD COLUMN `chunked` INTEGER NOT NULL DEFAULT 0");
+            database.execSQL("CREATE TABLE IF NOT EXISTS `note_chunks` (`noteId` INTEGER NOT NULL, `position` INTEGER NOT NULL, `content` TEXT, PRIMARY KEY(`noteId`, `position`), FOREIGN KEY(`noteId`) REFERENCES `notes`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE )");
+            chunkLargeNotes(database);
+        }
+    };
+
+    // Reminders set before this version only lived in AlarmManager and can't be recovered.
+    public static final Migration MIGRATION_8_9 = new Migration(8, 9) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS `note_reminders` (`noteId` INTEGER NOT NULL, `dueAt` INTEGER NOT NULL, PRIMARY KEY(`noteId`), FOREIGN KEY(`noteId`) REFERENCES `notes`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE )");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_note_reminders_dueAt` ON `note_reminders` (`dueAt`)");
+        }
+    };
+
+    // Records chunked notes as chains per chunk position, so that no revision row holds more than a chunk, and
+    // lets NoteHistory find the chunks written since a note's last revision.
+    public static final Migration MIGRATION_9_10 = new Migration(9, 10) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("ALTER TABLE `note_revisions` ADD COLUMN `chunked` INTEGER NOT NULL DEFAULT 0");
+            database.execSQL("ALTER TABLE `note_chunks` ADD COLUMN `revised` INTEGER NOT NULL DEFAULT 0");
+            database.execSQL("CREATE TABLE IF NOT EXISTS `note_revision_chunks` (`revisionId` INTEGER NOT NULL, `noteId` INTEGER NOT NULL, `position` INTEGER NOT NULL, `snapshot` INTEGER NOT NULL, `deleted` INTEGER NOT NULL, `prefixLength` INTEGER NOT NULL, `suffixLength` INTEGER NOT NULL, `insertedText` TEXT, PRIMARY KEY(`revisionId`, `position`), FOREIGN KEY(`revisionId`) REFERENCES `note_revisions`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE )");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_note_revision_chunks_noteId_position_revisionId` ON `note_revision_chunks` (`noteId`, `position`, `revisionId`)");
+            // Databases that reached version 8 before MIGRATION_7_8 chunked existing notes.
+            chunkLargeNotes(database);
+        }
+    };
+
+    // Indexes the chunks of large notes for full text search; notes_fts only sees their first chunk.
+    public static final Migration MIGRATION_10_11 = new Migration(10, 11) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS `note_chunks_fts` USING FTS4(`content` TEXT, tokenize=unicode61, content=`note_chunks`)");
+            createChunkFtsTriggers(database);
+            database.execSQL("INSERT INTO `note_chunks_fts`(`note_chunks_fts`) VALUES ('rebuild')");
+        }
+    };
+
+    // Scopes the notes_fts update triggers to the indexed columns, so saving only the color or the image of a note
+    // doesn't reindex it.
+    public static final Migration MIGRATION_11_12 = new Migration(11, 12) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("DROP TRIGGER IF EXISTS room_fts_content_sync_notes_fts_BEFORE_UPDATE");
+            database.execSQL("DROP TRIGGER IF EXISTS room_fts_content_sync_notes_fts_AFTER_UPDATE");
+            createFtsTriggers(database);
+        }
+    };
+
+    // Room creates its FTS sync triggers with a new database; they reindex a row on any update, so they are
+    // replaced with the ones the migrations create.
+    public static void replaceRoomFtsTriggers(SupportSQLiteDatabase database) {
+        database.execSQL("DROP TRIGGER IF EXISTS room_fts_content_sync_notes_fts_BEFORE_UPDATE");
+        database.execSQL("DROP TRIGGER IF EXISTS room_fts_content_sync_notes_fts_AFTER_UPDATE");
+        createFtsTriggers(database);
+        database.execSQL("DROP TRIGGER IF EXISTS room_fts_content_sync_note_chunks_fts_BEFORE_UPDATE");
+        database.execSQL("DROP TRIGGER IF EXISTS room_fts_content_sync_note_chunks_fts_AFTER_UPDATE");
+        createChunkFtsTriggers(database);
+    }
+
+    // Moves notes longer than the chunking threshold into note_chunks, the way the DAO stores them, so no row is
+    // too large for a CursorWindow. The content is cut with substr() inside SQLite and never read whole. Their
+    // revisions hold the whole content too and are dropped, as they could not be read back either. substr()
+    // counts code points rather than UTF-16 units, so a chunk is at most MAX_CHUNK_LENGTH units.
+    private static void chunkLargeNotes(SupportSQLiteDatabase database) {
+        List<long[]> largeNotes = new ArrayList<>();
+        try (Cursor cursor = database.query("SELECT `id`, length(`content`) FROM `notes` WHERE `chunked` = 0 AND length(`content`) > " + ChunkTracker.CHUNKING_THRESHOLD)) {
+            while (cursor.moveToNext()) {
+                largeNotes.add(new long[]{cursor.getLong(0), cursor.getLong(1)});
+            }
+        }
+
+        SupportSQLiteStatement insertChunk = database.compileStatement("INSERT INTO `note_chunks` (`noteId`, `position`, `content`) "
+                + "SELECT `id`, ?, substr(`content`, ?, " + ChunkTracker.CHUNK_SIZE + ") FROM `notes` WHERE `id` = ?");
+        SupportSQLiteStatement keepFirstChunk = database.compileStatement("UPDATE `notes` SET `content` = substr(`content`, 1, "
+                + ChunkTracker.CHUNK_SIZE + "), `chunked` = 1 WHERE `id` = ?");
+        SupportSQLiteStatement deleteRevisions = database.compileStatement("DELETE FROM `note_revisions` WHERE `noteId` = ?");
+        for (long[] largeNote : largeNotes) {
+            long noteId = largeNote[0];
+            long length = largeNote[1];
+            for (int index = 0; (long) index * ChunkTracker.CHUNK_SIZE < length; index++) {
+                insertChunk.bindLong(1, ChunkTracker.positionOf(index));
+                insertChunk.bindLong(2, (long) index * ChunkTracker.CHUNK_SIZE + 1);
+                insertChunk.bindLong(3, noteId);
+                insertChunk.executeInsert();
+            }
+            keepFirstChunk.bindLong(1, noteId);
+            keepFirstChunk.executeUpdateDelete();
+            deleteRevisions.bindLong(1, noteId);
+            deleteRevisions.executeUpdateDelete();
+        }
+    }
+
+    private static int parseColor(String color) {
+        try {
+            return Color.parseColor(color.trim());
+        } catch (IllegalArgumentException exception) {
+            return DEFAULT_NOTE_COLOR;
+        }
+    }
+
+    // Swaps a rebuilt notes_new table in for notes. Dropping notes also drops its indexes and FTS sync triggers.
+    private static void replaceNotesTable(SupportSQLiteDatabase database) {
+        database.execSQL("DROP TABLE `notes`");
+        database.execSQL("ALTER TABLE `notes_new` RENAME TO `notes`");
+        database.execSQL("CREATE INDEX IF NOT EXISTS `index_notes_createdAt` ON `notes` (`createdAt`)");
+        database.execSQL("CREATE INDEX IF NOT EXISTS `index_notes_updatedAt` ON `notes` (`updatedAt`)");
+        createFtsTriggers(database);
+    }
+
+    // Dates that can't be parsed in either locale fall back to the migration time.
+    private static long parseCreationDateTime(String creationDateTime, SimpleDateFormat localFormat,
+                                              SimpleDateFormat englishFormat, long fallback) {
+        if (creationDateTime == null) {
+            return fallback;
+        }
+        for (SimpleDateFormat format : new SimpleDateFormat[]{localFormat, englishFormat}) {
+            try {
+                Date date = format.parse(creationDateTime);
+                if (date != null) {
+                    return date.getTime();
+                }
+            } catch (ParseException ignored) {
+            }
+        }
+        return fallback;
+    }
+
+    // Like Room's triggers for note_chunks_fts, but only updates of the content reindex a chunk, so marking chunks
+    // as revised doesn't.
+    private static void createChunkFtsTriggers(SupportSQLiteDatabase database) {
+        database.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_note_chunks_fts_BEFORE_UPDATE BEFORE UPDATE OF `content` ON `note_chunks` BEGIN DELETE FROM `note_chunks_fts` WHERE `docid`=OLD.`rowid`; END");
+        database.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_note_chunks_fts_BEFORE_DELETE BEFORE DELETE ON `note_chunks` BEGIN DELETE FROM `note_chunks_fts` WHERE `docid`=OLD.`rowid`; END");
+        database.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_note_chunks_fts_AFTER_UPDATE AFTER UPDATE OF `content` ON `note_chunks` BEGIN INSERT INTO `note_chunks_fts`(`docid`, `content`) VALUES (NEW.`rowid`, NEW.`content`); END");
+        database.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_note_chunks_fts_AFTER_INSERT AFTER INSERT ON `note_chunks` BEGIN INSERT INTO `note_chunks_fts`(`docid`, `content`) VALUES (NEW.`rowid`, NEW.`content`); END");
+    }
+
+    // Like the triggers Room creates for an external content FTS entity, they keep notes_fts in sync with notes,
+    // but only updates of the title or content reindex a note.
+    static void createFtsTriggers(SupportSQLiteDatabase database) {
+        database.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_notes_fts_BEFORE_UPDATE BEFORE UPDATE OF `title`, `content` ON `notes` BEGIN DELETE FROM `notes_fts` WHERE `docid`=OLD.`rowid`; END");
+        database.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_notes_fts_BEFORE_DELETE BEFORE DELETE ON `notes` BEGIN DELETE FROM `notes_fts` WHERE `docid`=OLD.`rowid`; END");
+        database.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_notes_fts_AFTER_UPDATE AFTER UPDATE OF `title`, `content` ON `notes` BEGIN INSERT INTO `notes_fts`(`docid`, `title`, `content`) VALUES (NEW.`rowid`, NEW.`title`, NEW.`content`); END");
+        database.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_notes_fts_AFTER_INSERT AFTER INSERT ON `notes` BEGIN INSERT INTO `notes_fts`(`docid`, `title`, `content`) VALUES (NEW.`rowid`, NEW.`title`, NEW.`content`); END");
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.note.diagnostics;
+
+import android.database.Cursor;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.room.RoomDatabase;
+import androidx.sqlite.db.SimpleSQLiteQuery;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+
+// Times every repository operation and keeps a latency histogram per operation, named after the first SQL
+// statement it ran. The statements come from Room's query callback, which runs on the querying thread, so each
+// operation sees only its own. Operations slower than SLOW_OPERATION_MILLIS are logged with their query plans.
+// Only the first few distinct statements of an operation are kept, without their bind arguments, so a bulk write
+// running thousands of statements doesn't hold them all in memory.
+public class DatabaseDiagnostics {
+
+    private static final String TAG = "DatabaseDiagnostics";
+    private static final long SLOW_OPERATION_MILLIS = 50;
+    private static final int MAX_NAME_LENGTH = 120;
+    private static final int MAX_STATEMENTS = 8;
+    private static final int MAX_EXPLAINED_STATEMENTS = 3;
+    // Logcat truncates longer entries anyway.
+    private static final int MAX_LOG_LENGTH = 4000;
+
+    private static DatabaseDiagnostics databaseDiagnostics;
+
+    private final ThreadLocal<List<String>> operationStatements = new ThreadLocal<>();
+    private final Map<String, LatencyHistogram> histograms = new TreeMap<>();
+    private final Map<String, Map<String, Long>> threads = new TreeMap<>();
+
+    public static synchronized DatabaseDiagnostics getInstance() {
+        if (databaseDiagnostics == null) {
+            databaseDiagnostics = new DatabaseDiagnostics();
+        }
+        return databaseDiagnostics;
+    }
+
+    // Room's QueryCallback. Statements run outside a measured operation, like the invalidation tracker's, are
+    // not recorded, and neither are transaction control statements.
+    public void onQuery(String sql, List<Object> bindArgs) {
+        List<String> statements = operationStatements.get();
+        if (statements != null && statements.size() < MAX_STATEMENTS && !isTransactionControl(sql)
+                && !statements.contains(sql)) {
+            statements.add(sql);
+        }
+    }
+
+    public <T> T measure(RoomDatabase database, Callable<T> operation) throws Exception {
+        List<String> statements = new ArrayList<>();
+        operationStatements.set(statements);
+        long startNanos = SystemClock.elapsedRealtimeNanos();
+        T result;
+        try {
+            result = operation.call();
+        } finally {
+            operationStatements.remove();
+        }
+        long micros = (SystemClock.elapsedRealtimeNanos() - startNanos) / 1000;
+
+        String name = operationName(statements);
+        record(name, micros, rowCount(result), Thread.currentThread().getName());
+        if (micros >= SLOW_OPERATION_MILLIS * 1000) {
+            logSlowOperation(database, name, micros, statements);
+        }
+        return result;
+    }
+
+    public synchronized void reset() {
+        histograms.clear();
+        threads.clear();
+    }
+
+    // Slowest operations first.
+    public synchronized void dump(StringBuilder out) {
+        List<String> names = new ArrayList<>(histograms.keySet());
+        Collections.sort(names, (first, second) ->
+                Long.compare(histograms.get(second).getMaxMicros(), histograms.get(first).getMaxMicros()));
+
+        out.append("# Database operations\n");
+        for (String name : names) {
+            out.append(name).append('\n');
+            out.append("  ").append(histograms.get(name).format()).append('\n');
+            out.append("  threads:");
+            for (Map.Entry<String, Long> thread : threads.get(name).entrySet()) {
+                out.append(' ').append(thread.getKey()).append('=').append(thread.getValue());
+            }
+            out.append('\n');
+        }
+    }
+
+    private synchronized void record(String name, long micros, long rows, String threadName) {
+        LatencyHistogram histogram = histograms.get(name);
+        if (histogram == null) {
+            histogram = new LatencyHistogram();
+            histograms.put(name, histogram);
+            threads.put(name, new TreeMap<>());
+        }
+        histogram.record(micros, rows);
+
+        Map<String, Long> threadCounts = threads.get(name);
+        Long threadCount = threadCounts.get(threadName);
+        threadCounts.put(threadName, threadCount == null ? 1 : threadCount + 1);
+    }
+
+    // The plans are explained with unbound parameters, which SQLite treats as NULL; the plan doesn't depend on them.
+    private static void logSlowOperation(RoomDatabase database, String name, long micros, List<String> statements) {
+        StringBuilder message = new StringBuilder()
+                .append("Slow operation (").append(LatencyHistogram.formatMicros(micros)).append(") on ")
+                .append(Thread.currentThread().getName()).append(": ").append(name);
+        int explainedStatements = 0;
+        for (String sql : statements) {
+            if (explainedStatements == MAX_EXPLAINED_STATEMENTS || message.length() >= MAX_LOG_LENGTH) {
+                break;
+            }
+            if (!isExplainable(sql)) {
+                continue;
+            }
+            explainedStatements++;
+            message.append("\n  ").append(sql);
+            try (Cursor cursor = database.query(new SimpleSQLiteQuery("EXPLAIN QUERY PLAN " + sql))) {
+                int detailColumn = cursor.getColumnIndex("detail");
+                while (cursor.moveToNext()) {
+                    message.append("\n    ").append(cursor.getString(detailColumn));
+                }
+            } catch (RuntimeException exception) {
+                message.append("\n    (no plan: ").append(exception.getMessage()).append(')');
+            }
+        }
+        if (message.length() > MAX_LOG_LENGTH) {
+            message.setLength(MAX_LOG_LENGTH);
+        }
+        Log.w(TAG, message.toString());
+    }
+
+    private static boolean isExplainable(String sql) {
+        String statement = sql.trim().toUpperCase(Locale.US);
+        return statement.startsWith("SELECT") || statement.startsWith("UPDATE") || statement.startsWith("DELETE");
+    }
+
+    // The first statement recorded, with runs of IN (?, ?, ...) placeholders collapsed so lists of different
+    // lengths count as the same operation.
+    static String operationName(List<String> statements) {
+        if (statements.isEmpty()) {
+            return "(no query)";
+        }
+        String name = statements.get(0).trim().replaceAll("\\?(\\s*,\\s*\\?)+", "?...");
+        return name.length() > MAX_NAME_LENGTH ? name.substring(0, MAX_NAME_LENGTH) + "..." : name;
+    }
+
+    private static boolean isTransactionControl(String sql) {
+        String upperCase = sql.trim().toUpperCase(Locale.US);
+        return upperCase.startsWith("BEGIN") || upperCase.startsWith("END TRANSACTION")
+                || upperCase.startsWith("TRANSACTION SUCCESSFUL") || upperCase.startsWith("COMMIT")
+                || upperCase.startsWith("ROLLBACK");
+    }
+
+    private static long rowCount(Object result) {
+        if (result == null) {
+            return 0;
+        }
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        if (result instanceof Integer) {
+            return (Integer) result;
+        }
+        return 1;
+    }
+}
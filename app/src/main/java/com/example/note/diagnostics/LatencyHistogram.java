@@ -0,0 +1,70 @@
+package com.example.note.diagnostics;
+
+import java.util.Locale;
+
+// Durations in power-of-two microsecond buckets: bucket i counts durations below 2^(i+1) us that didn't fit the
+// bucket before it. Percentiles are reported as the upper bound of their bucket, so they are at most 2x high.
+public class LatencyHistogram {
+
+    private static final int BUCKETS = 40;
+
+    private final long[] buckets = new long[BUCKETS];
+    private long count;
+    private long totalMicros;
+    private long maxMicros;
+    private long rows;
+
+    public synchronized void record(long micros, long rowCount) {
+        buckets[bucketOf(micros)]++;
+        count++;
+        totalMicros += micros;
+        maxMicros = Math.max(maxMicros, micros);
+        rows += rowCount;
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    public synchronized long getMaxMicros() {
+        return maxMicros;
+    }
+
+    // Upper bound in microseconds of the duration below which the given fraction of the samples fall.
+    public synchronized long percentileMicros(double fraction) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(fraction * count);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets[i];
+            if (seen >= Math.max(rank, 1)) {
+                return Math.min(1L << (i + 1), maxMicros);
+            }
+        }
+        return maxMicros;
+    }
+
+    public synchronized String format() {
+        return String.format(Locale.US, "count=%d rows=%d mean=%s p50<=%s p90<=%s p99<=%s max=%s",
+                count,
+                rows,
+                formatMicros(count == 0 ? 0 : totalMicros / count),
+                formatMicros(percentileMicros(0.5)),
+                formatMicros(percentileMicros(0.9)),
+                formatMicros(percentileMicros(0.99)),
+                formatMicros(maxMicros));
+    }
+
+    static int bucketOf(long micros) {
+        if (micros < 2) {
+            return 0;
+        }
+        return Math.min(63 - Long.numberOfLeadingZeros(micros), BUCKETS - 1);
+    }
+
+    static String formatMicros(long micros) {
+        return String.format(Locale.US, "%.2fms", micros / 1000.0);
+    }
+}
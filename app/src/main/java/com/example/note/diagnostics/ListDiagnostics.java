@@ -0,0 +1,87 @@
+package com.example.note.diagnostics;
+
+import android.os.SystemClock;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Where the note list spends its main thread time: card inflation, binds split by text and image cards, card
+// background construction and thumbnail requests, plus frame pacing while the list scrolls. Main thread only,
+// apart from dump() and reset().
+public class ListDiagnostics {
+
+    public static final String INFLATE_CARD = "inflate card";
+    public static final String BIND_TEXT_CARD = "bind text card";
+    public static final String BIND_IMAGE_CARD = "bind image card";
+    public static final String BUILD_CARD_BACKGROUND = "build card background";
+    public static final String REQUEST_THUMBNAIL = "request thumbnail";
+    public static final String SCROLL_FRAME = "scroll frame interval";
+
+    // A frame counts as slow once it takes half a refresh longer than it should.
+    private static final double SLOW_FRAME_FACTOR = 1.5;
+
+    private static ListDiagnostics listDiagnostics;
+
+    private final Map<String, LatencyHistogram> histograms = new TreeMap<>();
+    private long frames;
+    private long slowFrames;
+    private long droppedFrames;
+    private long refreshNanos;
+
+    public static synchronized ListDiagnostics getInstance() {
+        if (listDiagnostics == null) {
+            listDiagnostics = new ListDiagnostics();
+        }
+        return listDiagnostics;
+    }
+
+    public static long now() {
+        return SystemClock.elapsedRealtimeNanos();
+    }
+
+    public synchronized void record(String name, long startNanos) {
+        recordMicros(name, (now() - startNanos) / 1000);
+    }
+
+    public synchronized void recordFrame(long intervalNanos, long refreshNanos) {
+        this.refreshNanos = refreshNanos;
+        recordMicros(SCROLL_FRAME, intervalNanos / 1000);
+        frames++;
+        if (intervalNanos > SLOW_FRAME_FACTOR * refreshNanos) {
+            slowFrames++;
+            droppedFrames += droppedFrames(intervalNanos, refreshNanos);
+        }
+    }
+
+    public synchronized void reset() {
+        histograms.clear();
+        frames = 0;
+        slowFrames = 0;
+        droppedFrames = 0;
+    }
+
+    public synchronized void dump(StringBuilder out) {
+        out.append("# Note list\n");
+        out.append(String.format(Locale.US, "scroll frames=%d slow=%d dropped=%d refresh=%s\n",
+                frames, slowFrames, droppedFrames, LatencyHistogram.formatMicros(refreshNanos / 1000)));
+        for (Map.Entry<String, LatencyHistogram> histogram : histograms.entrySet()) {
+            out.append(histogram.getKey()).append('\n');
+            out.append("  ").append(histogram.getValue().format()).append('\n');
+        }
+    }
+
+    // Refreshes that passed without a new frame.
+    static long droppedFrames(long intervalNanos, long refreshNanos) {
+        return Math.max(0, Math.round((double) intervalNanos / refreshNanos) - 1);
+    }
+
+    private void recordMicros(String name, long micros) {
+        LatencyHistogram histogram = histograms.get(name);
+        if (histogram == null) {
+            histogram = new LatencyHistogram();
+            histograms.put(name, histogram);
+        }
+        histogram.record(micros, 0);
+    }
+}
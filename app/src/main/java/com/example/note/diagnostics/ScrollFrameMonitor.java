@@ -0,0 +1,50 @@
+package com.example.note.diagnostics;
+
+import android.view.Choreographer;
+import android.view.Display;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+// Records the interval between frames while a RecyclerView is scrolling. The frame callback is only posted
+// during scrolls, so an idle list costs nothing and idle frames don't dilute the numbers.
+public class ScrollFrameMonitor extends RecyclerView.OnScrollListener implements Choreographer.FrameCallback {
+
+    private static final float DEFAULT_REFRESH_RATE = 60f;
+
+    private final ListDiagnostics listDiagnostics;
+    private long refreshNanos;
+    private long lastFrameNanos;
+    private boolean scrolling;
+
+    public ScrollFrameMonitor(ListDiagnostics listDiagnostics) {
+        this.listDiagnostics = listDiagnostics;
+    }
+
+    @Override
+    public void onScrollStateChanged(@NonNull RecyclerView recyclerView, int newState) {
+        if (newState != RecyclerView.SCROLL_STATE_IDLE && !scrolling) {
+            Display display = recyclerView.getDisplay();
+            float refreshRate = display != null ? display.getRefreshRate() : DEFAULT_REFRESH_RATE;
+            refreshNanos = (long) (1_000_000_000L / refreshRate);
+            lastFrameNanos = 0;
+            scrolling = true;
+            Choreographer.getInstance().postFrameCallback(this);
+        } else if (newState == RecyclerView.SCROLL_STATE_IDLE && scrolling) {
+            scrolling = false;
+            Choreographer.getInstance().removeFrameCallback(this);
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (!scrolling) {
+            return;
+        }
+        if (lastFrameNanos != 0) {
+            listDiagnostics.recordFrame(frameTimeNanos - lastFrameNanos, refreshNanos);
+        }
+        lastFrameNanos = frameTimeNanos;
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+}
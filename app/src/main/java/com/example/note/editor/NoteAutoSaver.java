@@ -0,0 +1,166 @@
+package com.example.note.editor;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.example.note.chunks.ChunkTracker;
+import com.example.note.entities.NoteChunk;
+import com.example.note.repository.NoteChanges;
+import com.example.note.repository.NoteRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Write-behind saving for the editor: edits only mark fields dirty, and after a quiet period the dirty
+// fields are read once and handed to the repository's single writer thread. Main thread only.
+public class NoteAutoSaver {
+
+    public static final long DEBOUNCE_MILLIS = 1000;
+
+    public interface EditorState {
+        String getTitle();
+
+        CharSequence getContent();
+
+        int getColor();
+
+        String getImagePath();
+
+        String getWebLink();
+    }
+
+    private final NoteRepository noteRepository;
+    private final EditorState editorState;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable flushRunnable = this::flush;
+    private final AtomicLong noteId = new AtomicLong();
+
+    private long createdAt;
+    private int dirtyFields;
+    // Whether the title or content was saved since the last checkpoint, which then reindexes the note.
+    private boolean textSaved;
+    private boolean started;
+    // Set once the note's content is stored in chunks; content saves then only write the chunks that were edited.
+    private ChunkTracker chunkTracker;
+
+    public NoteAutoSaver(NoteRepository noteRepository, EditorState editorState) {
+        this.noteRepository = noteRepository;
+        this.editorState = editorState;
+    }
+
+    // Changes made before start() are the initial contents of the editor and are not saved.
+    public void start(long noteId, long createdAt) {
+        this.noteId.set(noteId);
+        this.createdAt = createdAt;
+        this.started = true;
+    }
+
+    public void setChunkTracker(ChunkTracker chunkTracker) {
+        this.chunkTracker = chunkTracker;
+    }
+
+    // Called from the content TextWatcher's onTextChanged, for edits made by the user.
+    public void onContentChanged(int start, int before, int count) {
+        if (!started) {
+            return;
+        }
+        if (chunkTracker != null) {
+            chunkTracker.onTextChanged(start, before, count);
+        }
+        markDirty(NoteChanges.CONTENT);
+    }
+
+    public void markDirty(int field) {
+        if (!started) {
+            return;
+        }
+        dirtyFields |= field;
+        mainHandler.removeCallbacks(flushRunnable);
+        mainHandler.postDelayed(flushRunnable, DEBOUNCE_MILLIS);
+    }
+
+    public void flush() {
+        mainHandler.removeCallbacks(flushRunnable);
+        if (dirtyFields == 0) {
+            return;
+        }
+
+        // A note that hasn't been inserted yet needs every field, not just the dirty ones.
+        int fieldsToRead = noteId.get() == 0 ? NoteChanges.ALL : dirtyFields;
+        NoteChanges changes = new NoteChanges(noteId, fieldsToRead, createdAt, System.currentTimeMillis());
+        if (changes.isDirty(NoteChanges.TITLE)) {
+            changes.setTitle(editorState.getTitle());
+        }
+        if (changes.isDirty(NoteChanges.CONTENT)) {
+            readContent(changes);
+        }
+        if (changes.isDirty(NoteChanges.COLOR)) {
+            changes.setColor(editorState.getColor());
+        }
+        if (changes.isDirty(NoteChanges.IMAGE_PATH)) {
+            changes.setImagePath(editorState.getImagePath());
+        }
+        if (changes.isDirty(NoteChanges.WEB_LINK)) {
+            changes.setWebLink(editorState.getWebLink());
+        }
+        dirtyFields = 0;
+        textSaved |= changes.isDirty(NoteChanges.TITLE) || changes.isDirty(NoteChanges.CONTENT);
+
+        noteRepository.saveChanges(changes, null);
+    }
+
+    private void readContent(NoteChanges changes) {
+        CharSequence content = editorState.getContent();
+
+        // Until the note is inserted, or when the content first outgrows the inline limit, it is saved whole;
+        // the DAO then lays the chunks out the same way ChunkTracker.forStoredText does.
+        if (chunkTracker == null || noteId.get() == 0) {
+            changes.setContent(content.toString());
+            if (chunkTracker != null || ChunkTracker.needsChunks(content)) {
+                chunkTracker = ChunkTracker.forStoredText(content);
+            }
+            return;
+        }
+
+        ChunkTracker.Changes chunkChanges = chunkTracker.takeChanges(content);
+        List<NoteChunk> chunkWrites = new ArrayList<>(chunkChanges.getWrites().size());
+        for (ChunkTracker.ChunkWrite write : chunkChanges.getWrites()) {
+            chunkWrites.add(new NoteChunk(0, write.getPosition(),
+                    content.subSequence(write.getStart(), write.getEnd()).toString()));
+        }
+        changes.setChunkChanges(chunkWrites, chunkChanges.getDeletedPositions());
+    }
+
+    // Saves pending edits and records them as a revision of the note; called when the user leaves or saves.
+    public void checkpoint() {
+        if (!started) {
+            return;
+        }
+        flush();
+        noteRepository.recordRevision(noteId, textSaved, null);
+        textSaved = false;
+    }
+
+    // Saves pending edits first, so that a new note has been inserted by the time the reminder is stored.
+    public void setReminder(long dueAt, NoteRepository.Callback<Boolean> callback) {
+        flush();
+        noteRepository.setReminder(noteId, dueAt, callback);
+    }
+
+    // Drops unsaved edits and deletes the note, after any insert already queued for it.
+    public void delete(NoteRepository.Callback<Integer> callback) {
+        discard();
+        noteRepository.deleteNote(noteId, callback);
+    }
+
+    public void discard() {
+        mainHandler.removeCallbacks(flushRunnable);
+        dirtyFields = 0;
+        started = false;
+    }
+
+    public long getNoteId() {
+        return noteId.get();
+    }
+}
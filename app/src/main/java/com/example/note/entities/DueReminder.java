@@ -0,0 +1,51 @@
+package com.example.note.entities;
+
+import androidx.room.ColumnInfo;
+
+// A reminder that is due, with what its notification shows of the note.
+public class DueReminder {
+
+    @ColumnInfo(name = "noteId")
+    private long noteId;
+
+    @ColumnInfo(name = "dueAt")
+    private long dueAt;
+
+    @ColumnInfo(name = "title")
+    private String title;
+
+    @ColumnInfo(name = "preview")
+    private String preview;
+
+    public long getNoteId() {
+        return noteId;
+    }
+
+    public void setNoteId(long noteId) {
+        this.noteId = noteId;
+    }
+
+    public long getDueAt() {
+        return dueAt;
+    }
+
+    public void setDueAt(long dueAt) {
+        this.dueAt = dueAt;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getPreview() {
+        return preview;
+    }
+
+    public void setPreview(String preview) {
+        this.preview = preview;
+    }
+}
@@ -3,12 +3,11 @@ package com.example.note.entities;
 import androidx.annotation.NonNull;
 import androidx.room.ColumnInfo;
 import androidx.room.Entity;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 
-import java.io.Serializable;
-
-@Entity(tableName = "notes")
-public class Note implements Serializable {
+@Entity(tableName = "notes", indices = {@Index("createdAt"), @Index("updatedAt")})
+public class Note {
 
     @PrimaryKey(autoGenerate = true)
     private long id;
@@ -19,11 +18,17 @@ public class Note implements Serializable {
     @ColumnInfo(name = "content")
     private String content;
 
-    @ColumnInfo(name = "creationDateTime")
-    private String creationDateTime;
+    @ColumnInfo(name = "preview")
+    private String preview;
+
+    @ColumnInfo(name = "createdAt")
+    private long createdAt;
+
+    @ColumnInfo(name = "updatedAt")
+    private long updatedAt;
 
     @ColumnInfo(name = "color")
-    private String color;
+    private int color;
 
     @ColumnInfo(name = "link")
     private String link;
@@ -34,10 +39,14 @@ public class Note implements Serializable {
     @ColumnInfo(name = "webLink")
     private String webLink;
 
+    // When set, content only holds the first chunk and the full content is in note_chunks.
+    @ColumnInfo(name = "chunked", defaultValue = "0")
+    private boolean chunked;
+
     @NonNull
     @Override
     public String toString() {
-        return title + "：" + creationDateTime;
+        return title + "：" + createdAt;
     }
 
     public long getId() {
@@ -64,19 +73,35 @@ public class Note implements Serializable {
         this.content = content;
     }
 
-    public String getCreationDateTime() {
-        return creationDateTime;
+    public String getPreview() {
+        return preview;
+    }
+
+    public void setPreview(String preview) {
+        this.preview = preview;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
     }
 
-    public void setCreationDateTime(String creationDateTime) {
-        this.creationDateTime = creationDateTime;
+    public void setCreatedAt(long createdAt) {
+        this.createdAt = createdAt;
     }
 
-    public String getColor() {
+    public long getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(long updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public int getColor() {
         return color;
     }
 
-    public void setColor(String color) {
+    public void setColor(int color) {
         this.color = color;
     }
 
@@ -103,4 +128,12 @@ public class Note implements Serializable {
     public void setWebLink(String webLink) {
         this.webLink = webLink;
     }
+
+    public boolean isChunked() {
+        return chunked;
+    }
+
+    public void setChunked(boolean chunked) {
+        this.chunked = chunked;
+    }
 }
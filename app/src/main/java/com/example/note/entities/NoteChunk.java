@@ -0,0 +1,64 @@
+package com.example.note.entities;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+
+// A piece of the content of a note too large to keep in one row; see ChunkTracker.
+@Entity(
+        tableName = "note_chunks",
+        primaryKeys = {"noteId", "position"},
+        foreignKeys = @ForeignKey(entity = Note.class, parentColumns = "id", childColumns = "noteId", onDelete = ForeignKey.CASCADE))
+public class NoteChunk {
+
+    @ColumnInfo(name = "noteId")
+    private long noteId;
+
+    @ColumnInfo(name = "position")
+    private long position;
+
+    @ColumnInfo(name = "content")
+    private String content;
+
+    // Cleared whenever the chunk is written, and set once NoteHistory has recorded it in a revision.
+    @ColumnInfo(name = "revised", defaultValue = "0")
+    private boolean revised;
+
+    public NoteChunk(long noteId, long position, String content) {
+        this.noteId = noteId;
+        this.position = position;
+        this.content = content;
+    }
+
+    public long getNoteId() {
+        return noteId;
+    }
+
+    public void setNoteId(long noteId) {
+        this.noteId = noteId;
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
+    public void setPosition(long position) {
+        this.position = position;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+    }
+
+    public boolean isRevised() {
+        return revised;
+    }
+
+    public void setRevised(boolean revised) {
+        this.revised = revised;
+    }
+}
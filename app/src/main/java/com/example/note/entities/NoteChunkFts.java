@@ -0,0 +1,23 @@
+package com.example.note.entities;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Fts4;
+import androidx.room.FtsOptions;
+
+// Full text index over the chunks of large notes; notes_fts only sees the first chunk, which notes.content holds.
+@Fts4(contentEntity = NoteChunk.class, tokenizer = FtsOptions.TOKENIZER_UNICODE61)
+@Entity(tableName = "note_chunks_fts")
+public class NoteChunkFts {
+
+    @ColumnInfo(name = "content")
+    private String content;
+
+    public String getContent() {
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+    }
+}
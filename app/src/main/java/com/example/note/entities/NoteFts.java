@@ -0,0 +1,33 @@
+package com.example.note.entities;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Fts4;
+import androidx.room.FtsOptions;
+
+@Fts4(contentEntity = Note.class, tokenizer = FtsOptions.TOKENIZER_UNICODE61)
+@Entity(tableName = "notes_fts")
+public class NoteFts {
+
+    @ColumnInfo(name = "title")
+    private String title;
+
+    @ColumnInfo(name = "content")
+    private String content;
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.note.entities;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+// At most one pending reminder per note. The dueAt index makes the table the queue ReminderScheduler arms from.
+@Entity(
+        tableName = "note_reminders",
+        foreignKeys = @ForeignKey(entity = Note.class, parentColumns = "id", childColumns = "noteId", onDelete = ForeignKey.CASCADE),
+        indices = {@Index("dueAt")})
+public class NoteReminder {
+
+    @PrimaryKey
+    @ColumnInfo(name = "noteId")
+    private long noteId;
+
+    @ColumnInfo(name = "dueAt")
+    private long dueAt;
+
+    public NoteReminder(long noteId, long dueAt) {
+        this.noteId = noteId;
+        this.dueAt = dueAt;
+    }
+
+    public long getNoteId() {
+        return noteId;
+    }
+
+    public void setNoteId(long noteId) {
+        this.noteId = noteId;
+    }
+
+    public long getDueAt() {
+        return dueAt;
+    }
+
+    public void setDueAt(long dueAt) {
+        this.dueAt = dueAt;
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.note.entities;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+// A snapshot revision stores the whole content in insertedText; any other revision stores a RevisionDelta
+// against the revision before it. A chunked revision stores no text itself: its content is in
+// note_revision_chunks, one chain per chunk position.
+@Entity(
+        tableName = "note_revisions",
+        foreignKeys = @ForeignKey(entity = Note.class, parentColumns = "id", childColumns = "noteId", onDelete = ForeignKey.CASCADE),
+        indices = {@Index("noteId")})
+public class NoteRevision {
+
+    @PrimaryKey(autoGenerate = true)
+    private long id;
+
+    @ColumnInfo(name = "noteId")
+    private long noteId;
+
+    @ColumnInfo(name = "createdAt")
+    private long createdAt;
+
+    @ColumnInfo(name = "title")
+    private String title;
+
+    @ColumnInfo(name = "snapshot")
+    private boolean snapshot;
+
+    @ColumnInfo(name = "chunked", defaultValue = "0")
+    private boolean chunked;
+
+    @ColumnInfo(name = "prefixLength")
+    private int prefixLength;
+
+    @ColumnInfo(name = "suffixLength")
+    private int suffixLength;
+
+    @ColumnInfo(name = "insertedText")
+    private String insertedText;
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public long getNoteId() {
+        return noteId;
+    }
+
+    public void setNoteId(long noteId) {
+        this.noteId = noteId;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(long createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public boolean isSnapshot() {
+        return snapshot;
+    }
+
+    public void setSnapshot(boolean snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    public boolean isChunked() {
+        return chunked;
+    }
+
+    public void setChunked(boolean chunked) {
+        this.chunked = chunked;
+    }
+
+    public int getPrefixLength() {
+        return prefixLength;
+    }
+
+    public void setPrefixLength(int prefixLength) {
+        this.prefixLength = prefixLength;
+    }
+
+    public int getSuffixLength() {
+        return suffixLength;
+    }
+
+    public void setSuffixLength(int suffixLength) {
+        this.suffixLength = suffixLength;
+    }
+
+    public String getInsertedText() {
+        return insertedText;
+    }
+
+    public void setInsertedText(String insertedText) {
+        this.insertedText = insertedText;
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.note.entities;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.Index;
+
+// One chunk of a chunked revision, stored like a NoteRevision but chained per chunk position: a snapshot holds the
+// whole chunk, any other row a RevisionDelta against the same position's row before it. A deleted row marks a
+// chunk that was removed since the revision before.
+@Entity(
+        tableName = "note_revision_chunks",
+        primaryKeys = {"revisionId", "position"},
+        foreignKeys = @ForeignKey(entity = NoteRevision.class, parentColumns = "id", childColumns = "revisionId", onDelete = ForeignKey.CASCADE),
+        indices = {@Index({"noteId", "position", "revisionId"})})
+public class NoteRevisionChunk {
+
+    @ColumnInfo(name = "revisionId")
+    private long revisionId;
+
+    @ColumnInfo(name = "noteId")
+    private long noteId;
+
+    @ColumnInfo(name = "position")
+    private long position;
+
+    @ColumnInfo(name = "snapshot")
+    private boolean snapshot;
+
+    @ColumnInfo(name = "deleted")
+    private boolean deleted;
+
+    @ColumnInfo(name = "prefixLength")
+    private int prefixLength;
+
+    @ColumnInfo(name = "suffixLength")
+    private int suffixLength;
+
+    @ColumnInfo(name = "insertedText")
+    private String insertedText;
+
+    public long getRevisionId() {
+        return revisionId;
+    }
+
+    public void setRevisionId(long revisionId) {
+        this.revisionId = revisionId;
+    }
+
+    public long getNoteId() {
+        return noteId;
+    }
+
+    public void setNoteId(long noteId) {
+        this.noteId = noteId;
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
+    public void setPosition(long position) {
+        this.position = position;
+    }
+
+    public boolean isSnapshot() {
+        return snapshot;
+    }
+
+    public void setSnapshot(boolean snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    public boolean isDeleted() {
+        return deleted;
+    }
+
+    public void setDeleted(boolean deleted) {
+        this.deleted = deleted;
+    }
+
+    public int getPrefixLength() {
+        return prefixLength;
+    }
+
+    public void setPrefixLength(int prefixLength) {
+        this.prefixLength = prefixLength;
+    }
+
+    public int getSuffixLength() {
+        return suffixLength;
+    }
+
+    public void setSuffixLength(int suffixLength) {
+        this.suffixLength = suffixLength;
+    }
+
+    public String getInsertedText() {
+        return insertedText;
+    }
+
+    public void setInsertedText(String insertedText) {
+        this.insertedText = insertedText;
+    }
+}
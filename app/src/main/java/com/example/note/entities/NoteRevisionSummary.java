@@ -0,0 +1,39 @@
+package com.example.note.entities;
+
+import androidx.room.ColumnInfo;
+
+public class NoteRevisionSummary {
+
+    @ColumnInfo(name = "id")
+    private long id;
+
+    @ColumnInfo(name = "createdAt")
+    private long createdAt;
+
+    @ColumnInfo(name = "title")
+    private String title;
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(long createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+}
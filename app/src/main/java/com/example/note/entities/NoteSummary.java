@@ -0,0 +1,83 @@
+package com.example.note.entities;
+
+import androidx.room.ColumnInfo;
+
+public class NoteSummary {
+
+    @ColumnInfo(name = "id")
+    private long id;
+
+    @ColumnInfo(name = "title")
+    private String title;
+
+    @ColumnInfo(name = "preview")
+    private String preview;
+
+    @ColumnInfo(name = "color")
+    private int color;
+
+    @ColumnInfo(name = "imagePath")
+    private String imagePath;
+
+    @ColumnInfo(name = "createdAt")
+    private long createdAt;
+
+    @ColumnInfo(name = "updatedAt")
+    private long updatedAt;
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getPreview() {
+        return preview;
+    }
+
+    public void setPreview(String preview) {
+        this.preview = preview;
+    }
+
+    public int getColor() {
+        return color;
+    }
+
+    public void setColor(int color) {
+        this.color = color;
+    }
+
+    public String getImagePath() {
+        return imagePath;
+    }
+
+    public void setImagePath(String imagePath) {
+        this.imagePath = imagePath;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(long createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public long getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(long updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
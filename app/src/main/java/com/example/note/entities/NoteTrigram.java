@@ -0,0 +1,38 @@
+package com.example.note.entities;
+
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.Index;
+
+@Entity(
+        tableName = "note_trigrams",
+        primaryKeys = {"trigram", "noteId"},
+        foreignKeys = @ForeignKey(entity = Note.class, parentColumns = "id", childColumns = "noteId", onDelete = ForeignKey.CASCADE),
+        indices = {@Index("noteId")})
+public class NoteTrigram {
+
+    private long trigram;
+
+    private long noteId;
+
+    public NoteTrigram(long trigram, long noteId) {
+        this.trigram = trigram;
+        this.noteId = noteId;
+    }
+
+    public long getTrigram() {
+        return trigram;
+    }
+
+    public void setTrigram(long trigram) {
+        this.trigram = trigram;
+    }
+
+    public long getNoteId() {
+        return noteId;
+    }
+
+    public void setNoteId(long noteId) {
+        this.noteId = noteId;
+    }
+}
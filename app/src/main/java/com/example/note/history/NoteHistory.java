@@ -0,0 +1,229 @@
+package com.example.note.history;
+
+import com.example.note.entities.Note;
+import com.example.note.entities.NoteChunk;
+import com.example.note.entities.NoteRevision;
+import com.example.note.entities.NoteRevisionChunk;
+import com.example.note.util.NotePreview;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Revisions form chains that start with a full snapshot, followed by up to SNAPSHOT_INTERVAL - 1 deltas, so
+// rebuilding any revision reads at most SNAPSHOT_INTERVAL rows. A chunked note keeps one such chain per chunk
+// position, and a revision only adds rows for the chunks written since the one before, so no row ever holds more
+// than a chunk. Callers run these inside a transaction.
+public class NoteHistory {
+
+    public static final int SNAPSHOT_INTERVAL = 10;
+
+    // Chunks read at a time while recording a chunked note.
+    private static final int CHUNK_BATCH_SIZE = 8;
+
+    private final RevisionStore store;
+
+    public NoteHistory(RevisionStore store) {
+        this.store = store;
+    }
+
+    // Records the note as it is now, unless its title and content match the latest revision.
+    public boolean recordRevision(long noteId, long createdAt) {
+        Note note = store.getNoteById(noteId);
+        if (note == null) {
+            return false;
+        }
+
+        Long latestRevisionId = store.getLatestRevisionId(noteId);
+        NoteRevision latest = latestRevisionId == null ? null : store.getRevision(noteId, latestRevisionId);
+        return note.isChunked()
+                ? recordChunkedRevision(note, latest, createdAt)
+                : recordInlineRevision(note, latest, createdAt);
+    }
+
+    private boolean recordInlineRevision(Note note, NoteRevision latest, long createdAt) {
+        NoteRevision revision = newRevision(note, createdAt);
+
+        // Inline chains don't run through chunked revisions, so the first inline one after them is a snapshot.
+        List<NoteRevision> chain = latest == null || latest.isChunked()
+                ? null
+                : store.getRevisionChain(note.getId(), latest.getId());
+
+        if (chain == null || chain.isEmpty() || chain.size() >= SNAPSHOT_INTERVAL) {
+            if (chain != null && !chain.isEmpty() && isUnchanged(note, chain)) {
+                return false;
+            }
+            revision.setSnapshot(true);
+            revision.setInsertedText(note.getContent());
+        } else {
+            if (isUnchanged(note, chain)) {
+                return false;
+            }
+            RevisionDelta delta = RevisionDelta.between(rebuildContent(chain), note.getContent());
+            revision.setPrefixLength(delta.getPrefixLength());
+            revision.setSuffixLength(delta.getSuffixLength());
+            revision.setInsertedText(delta.getInsertedText());
+        }
+
+        store.insertRevision(revision);
+        return true;
+    }
+
+    // Only the chunks written since the latest revision are compared with it, one at a time, plus the positions
+    // that were deleted since. After an inline revision every chunk starts a new chain with a snapshot.
+    private boolean recordChunkedRevision(Note note, NoteRevision latest, long createdAt) {
+        final long noteId = note.getId();
+        boolean continuesChains = latest != null && latest.isChunked();
+        long chainsStart = continuesChains ? store.getChunkChainsStart(noteId, latest.getId()) : 0;
+        Set<Long> previousPositions = continuesChains
+                ? new HashSet<>(store.getRevisionChunkPositions(noteId, chainsStart, latest.getId()))
+                : new HashSet<>();
+
+        long revisionId = 0;
+        if (!continuesChains || !equal(note.getTitle(), latest.getTitle())) {
+            revisionId = insertChunkedRevision(note, createdAt);
+        }
+
+        long afterPosition = Long.MIN_VALUE;
+        List<NoteChunk> chunks;
+        while (!(chunks = store.getChunksToRevise(noteId, afterPosition, !continuesChains, CHUNK_BATCH_SIZE)).isEmpty()) {
+            for (NoteChunk chunk : chunks) {
+                afterPosition = chunk.getPosition();
+                List<NoteRevisionChunk> chain = previousPositions.contains(chunk.getPosition())
+                        ? store.getRevisionChunkChain(noteId, chunk.getPosition(), chainsStart, latest.getId())
+                        : null;
+                NoteRevisionChunk revisionChunk = revisionChunkFor(chunk, chain);
+                if (revisionChunk == null) {
+                    continue;
+                }
+                if (revisionId == 0) {
+                    revisionId = insertChunkedRevision(note, createdAt);
+                }
+                revisionChunk.setRevisionId(revisionId);
+                store.insertRevisionChunk(revisionChunk);
+            }
+        }
+
+        previousPositions.removeAll(store.getChunkPositions(noteId));
+        for (Long position : previousPositions) {
+            if (revisionId == 0) {
+                revisionId = insertChunkedRevision(note, createdAt);
+            }
+            NoteRevisionChunk deletedChunk = new NoteRevisionChunk();
+            deletedChunk.setRevisionId(revisionId);
+            deletedChunk.setNoteId(noteId);
+            deletedChunk.setPosition(position);
+            deletedChunk.setDeleted(true);
+            store.insertRevisionChunk(deletedChunk);
+        }
+
+        store.markChunksRevised(noteId);
+        return revisionId != 0;
+    }
+
+    private long insertChunkedRevision(Note note, long createdAt) {
+        NoteRevision revision = newRevision(note, createdAt);
+        revision.setChunked(true);
+        return store.insertRevision(revision);
+    }
+
+    // The row recording the chunk against its chain, or null when the chunk is the same as in that chain.
+    private static NoteRevisionChunk revisionChunkFor(NoteChunk chunk, List<NoteRevisionChunk> chain) {
+        NoteRevisionChunk revisionChunk = new NoteRevisionChunk();
+        revisionChunk.setNoteId(chunk.getNoteId());
+        revisionChunk.setPosition(chunk.getPosition());
+
+        if (chain == null || chain.isEmpty()) {
+            revisionChunk.setSnapshot(true);
+            revisionChunk.setInsertedText(chunk.getContent());
+            return revisionChunk;
+        }
+
+        String previousContent = rebuildChunk(chain);
+        if (equal(previousContent, chunk.getContent())) {
+            return null;
+        }
+        if (chain.size() >= SNAPSHOT_INTERVAL) {
+            revisionChunk.setSnapshot(true);
+            revisionChunk.setInsertedText(chunk.getContent());
+            return revisionChunk;
+        }
+        RevisionDelta delta = RevisionDelta.between(previousContent, chunk.getContent());
+        revisionChunk.setPrefixLength(delta.getPrefixLength());
+        revisionChunk.setSuffixLength(delta.getSuffixLength());
+        revisionChunk.setInsertedText(delta.getInsertedText());
+        return revisionChunk;
+    }
+
+    // Writes the note back as it was at the given revision, as an edit of its own, so the next checkpoint records
+    // it as the latest revision. A chunked revision is rebuilt and written one chunk at a time.
+    public boolean restoreRevision(long noteId, long revisionId, long updatedAt) {
+        NoteRevision revision = store.getRevision(noteId, revisionId);
+        if (revision == null) {
+            return false;
+        }
+
+        store.updateTitle(noteId, revision.getTitle(), updatedAt);
+        if (!revision.isChunked()) {
+            store.storeContent(noteId, rebuildContent(store.getRevisionChain(noteId, revisionId)), updatedAt);
+            return true;
+        }
+
+        long chainsStart = store.getChunkChainsStart(noteId, revisionId);
+        store.deleteAllChunks(noteId);
+        String firstChunk = null;
+        for (Long position : store.getRevisionChunkPositions(noteId, chainsStart, revisionId)) {
+            String content = rebuildChunk(store.getRevisionChunkChain(noteId, position, chainsStart, revisionId));
+            store.insertChunk(new NoteChunk(noteId, position, content));
+            if (firstChunk == null) {
+                firstChunk = content;
+            }
+        }
+        firstChunk = firstChunk == null ? "" : firstChunk;
+        store.updateStoredContent(noteId, firstChunk, NotePreview.of(firstChunk), true, updatedAt);
+        return true;
+    }
+
+    private static NoteRevision newRevision(Note note, long createdAt) {
+        NoteRevision revision = new NoteRevision();
+        revision.setNoteId(note.getId());
+        revision.setCreatedAt(createdAt);
+        revision.setTitle(note.getTitle());
+        return revision;
+    }
+
+    private static boolean isUnchanged(Note note, List<NoteRevision> chain) {
+        String latestTitle = chain.get(chain.size() - 1).getTitle();
+        return equal(note.getTitle(), latestTitle) && equal(note.getContent(), rebuildContent(chain));
+    }
+
+    private static String rebuildContent(List<NoteRevision> chain) {
+        if (chain.isEmpty()) {
+            return "";
+        }
+        String content = chain.get(0).getInsertedText();
+        for (int i = 1; i < chain.size(); i++) {
+            NoteRevision revision = chain.get(i);
+            content = new RevisionDelta(revision.getPrefixLength(), revision.getSuffixLength(), revision.getInsertedText())
+                    .applyTo(content);
+        }
+        return content == null ? "" : content;
+    }
+
+    private static String rebuildChunk(List<NoteRevisionChunk> chain) {
+        if (chain.isEmpty()) {
+            return "";
+        }
+        String content = chain.get(0).getInsertedText();
+        for (int i = 1; i < chain.size(); i++) {
+            NoteRevisionChunk revisionChunk = chain.get(i);
+            content = new RevisionDelta(revisionChunk.getPrefixLength(), revisionChunk.getSuffixLength(), revisionChunk.getInsertedText())
+                    .applyTo(content);
+        }
+        return content == null ? "" : content;
+    }
+
+    private static boolean equal(String first, String second) {
+        return (first == null ? "" : first).equals(second == null ? "" : second);
+    }
+}
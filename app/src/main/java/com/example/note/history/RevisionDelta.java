@@ -0,0 +1,60 @@
+package com.example.note.history;
+
+// One edit turning a previous text into the current one: the shared prefix and suffix are kept by length and only
+// the text between them is stored. Typing in one place, the usual change between saves, stays small.
+public final class RevisionDelta {
+
+    private final int prefixLength;
+    private final int suffixLength;
+    private final String insertedText;
+
+    public RevisionDelta(int prefixLength, int suffixLength, String insertedText) {
+        this.prefixLength = prefixLength;
+        this.suffixLength = suffixLength;
+        this.insertedText = insertedText;
+    }
+
+    public static RevisionDelta between(String previous, String current) {
+        previous = previous == null ? "" : previous;
+        current = current == null ? "" : current;
+
+        int maxLength = Math.min(previous.length(), current.length());
+        int prefixLength = 0;
+        while (prefixLength < maxLength && previous.charAt(prefixLength) == current.charAt(prefixLength)) {
+            prefixLength++;
+        }
+        // Surrogate pairs stay together, so the stored text is always valid UTF-16.
+        if (prefixLength > 0 && Character.isHighSurrogate(current.charAt(prefixLength - 1))) {
+            prefixLength--;
+        }
+
+        int maxSuffixLength = maxLength - prefixLength;
+        int suffixLength = 0;
+        while (suffixLength < maxSuffixLength
+                && previous.charAt(previous.length() - 1 - suffixLength) == current.charAt(current.length() - 1 - suffixLength)) {
+            suffixLength++;
+        }
+        if (suffixLength > 0 && Character.isLowSurrogate(current.charAt(current.length() - suffixLength))) {
+            suffixLength--;
+        }
+
+        return new RevisionDelta(prefixLength, suffixLength, current.substring(prefixLength, current.length() - suffixLength));
+    }
+
+    public String applyTo(String previous) {
+        previous = previous == null ? "" : previous;
+        return previous.substring(0, prefixLength) + insertedText + previous.substring(previous.length() - suffixLength);
+    }
+
+    public int getPrefixLength() {
+        return prefixLength;
+    }
+
+    public int getSuffixLength() {
+        return suffixLength;
+    }
+
+    public String getInsertedText() {
+        return insertedText;
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.note.history;
+
+import com.example.note.entities.Note;
+import com.example.note.entities.NoteChunk;
+import com.example.note.entities.NoteRevision;
+import com.example.note.entities.NoteRevisionChunk;
+
+import java.util.List;
+
+// The reads and writes NoteHistory makes. NoteDao implements them with queries; keeping them apart lets the history
+// be tested against an in-memory store.
+public interface RevisionStore {
+
+    Note getNoteById(long id);
+
+    int updateTitle(long id, String title, long updatedAt);
+
+    int updateStoredContent(long id, String content, String preview, boolean chunked, long updatedAt);
+
+    void storeContent(long id, String content, long updatedAt);
+
+    void deleteAllChunks(long noteId);
+
+    List<Long> getChunkPositions(long noteId);
+
+    List<NoteChunk> getChunksToRevise(long noteId, long afterPosition, boolean includeRevised, int limit);
+
+    void markChunksRevised(long noteId);
+
+    void insertChunk(NoteChunk chunk);
+
+    long insertRevision(NoteRevision revision);
+
+    Long getLatestRevisionId(long noteId);
+
+    NoteRevision getRevision(long noteId, long revisionId);
+
+    List<NoteRevision> getRevisionChain(long noteId, long revisionId);
+
+    void insertRevisionChunk(NoteRevisionChunk revisionChunk);
+
+    long getChunkChainsStart(long noteId, long revisionId);
+
+    List<Long> getRevisionChunkPositions(long noteId, long chainsStart, long revisionId);
+
+    List<NoteRevisionChunk> getRevisionChunkChain(long noteId, long position, long chainsStart, long revisionId);
+}
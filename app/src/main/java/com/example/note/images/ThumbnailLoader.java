@@ -0,0 +1,242 @@
+package com.example.note.images;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.util.LruCache;
+import android.widget.ImageView;
+
+import com.example.note.R;
+import com.example.note.repository.NamedThreadFactory;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ThumbnailLoader {
+
+    private static final String TAG = "ThumbnailLoader";
+
+    private static final int DECODE_THREADS = 2;
+    private static final int JPEG_QUALITY = 85;
+    private static final long MAX_DISK_CACHE_BYTES = 50L * 1024 * 1024;
+    private static final int WRITES_BETWEEN_DISK_TRIMS = 50;
+
+    private static ThumbnailLoader thumbnailLoader;
+
+    private final File diskCacheDirectory;
+    private final LruCache<String, Bitmap> memoryCache;
+    private final ExecutorService decodeExecutor = Executors.newFixedThreadPool(DECODE_THREADS, new NamedThreadFactory("note-thumbnail"));
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final AtomicInteger diskWrites = new AtomicInteger();
+
+    private static class Request {
+        private final String memoryKey;
+        private Future<?> future;
+        private volatile boolean cancelled;
+
+        Request(String memoryKey) {
+            this.memoryKey = memoryKey;
+        }
+    }
+
+    public static synchronized ThumbnailLoader getInstance(Context context) {
+        if (thumbnailLoader == null) {
+            thumbnailLoader = new ThumbnailLoader(context.getApplicationContext());
+        }
+        return thumbnailLoader;
+    }
+
+    private ThumbnailLoader(Context context) {
+        this.diskCacheDirectory = new File(context.getCacheDir(), "thumbnails");
+
+        int maxKilobytes = (int) (Runtime.getRuntime().maxMemory() / 1024 / 8);
+        this.memoryCache = new LruCache<String, Bitmap>(maxKilobytes) {
+            @Override
+            protected int sizeOf(String key, Bitmap bitmap) {
+                return bitmap.getByteCount() / 1024;
+            }
+        };
+
+        decodeExecutor.execute(this::trimDiskCache);
+    }
+
+    // Both cache tiers are keyed by the image's modification time too, so an image replaced at the same path isn't
+    // shown stale; reading it is a stat, cheap enough for the main thread.
+    public void load(String imagePath, int targetWidth, ImageView imageView) {
+        final long lastModified = new File(imagePath).lastModified();
+        String memoryKey = cacheKey(imagePath, lastModified, targetWidth);
+
+        Object tag = imageView.getTag(R.id.thumbnail_request);
+        if (tag instanceof Request && ((Request) tag).memoryKey.equals(memoryKey) && !((Request) tag).cancelled) {
+            return;
+        }
+        cancel(imageView);
+
+        Bitmap cachedBitmap = memoryCache.get(memoryKey);
+        if (cachedBitmap != null) {
+            imageView.setImageBitmap(cachedBitmap);
+            return;
+        }
+
+        imageView.setImageDrawable(null);
+        Request request = new Request(memoryKey);
+        imageView.setTag(R.id.thumbnail_request, request);
+
+        request.future = decodeExecutor.submit(() -> {
+            if (request.cancelled) {
+                return;
+            }
+            Bitmap bitmap = loadThumbnail(imagePath, lastModified, memoryKey, targetWidth);
+            if (bitmap == null) {
+                return;
+            }
+            memoryCache.put(memoryKey, bitmap);
+
+            mainHandler.post(() -> {
+                if (!request.cancelled && imageView.getTag(R.id.thumbnail_request) == request) {
+                    imageView.setImageBitmap(bitmap);
+                    imageView.setTag(R.id.thumbnail_request, null);
+                }
+            });
+        });
+    }
+
+    public void cancel(ImageView imageView) {
+        Object tag = imageView.getTag(R.id.thumbnail_request);
+        if (tag instanceof Request) {
+            Request request = (Request) tag;
+            request.cancelled = true;
+            if (request.future != null) {
+                request.future.cancel(false);
+            }
+        }
+        imageView.setTag(R.id.thumbnail_request, null);
+    }
+
+    private Bitmap loadThumbnail(String imagePath, long lastModified, String cacheKey, int targetWidth) {
+        File imageFile = new File(imagePath);
+        if (lastModified == 0 || !imageFile.exists()) {
+            return null;
+        }
+
+        File cachedFile = new File(diskCacheDirectory, diskKey(cacheKey) + ".jpg");
+        if (cachedFile.exists()) {
+            Bitmap cachedBitmap = BitmapFactory.decodeFile(cachedFile.getPath());
+            if (cachedBitmap != null) {
+                return cachedBitmap;
+            }
+        }
+
+        Bitmap thumbnail = decodeScaled(imageFile, targetWidth);
+        if (thumbnail != null) {
+            writeToDiskCache(thumbnail, cachedFile);
+        }
+        return thumbnail;
+    }
+
+    private static Bitmap decodeScaled(File imageFile, int targetWidth) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(imageFile.getPath(), options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            return null;
+        }
+
+        int sampleSize = 1;
+        while (options.outWidth / (sampleSize * 2) >= targetWidth) {
+            sampleSize *= 2;
+        }
+
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = sampleSize;
+        Bitmap sampledBitmap = BitmapFactory.decodeFile(imageFile.getPath(), options);
+        if (sampledBitmap == null || sampledBitmap.getWidth() <= targetWidth) {
+            return sampledBitmap;
+        }
+
+        int targetHeight = Math.max(1, sampledBitmap.getHeight() * targetWidth / sampledBitmap.getWidth());
+        Bitmap scaledBitmap = Bitmap.createScaledBitmap(sampledBitmap, targetWidth, targetHeight, true);
+        if (scaledBitmap != sampledBitmap) {
+            sampledBitmap.recycle();
+        }
+        return scaledBitmap;
+    }
+
+    private void writeToDiskCache(Bitmap thumbnail, File cachedFile) {
+        if (!diskCacheDirectory.exists() && !diskCacheDirectory.mkdirs()) {
+            return;
+        }
+
+        File temporaryFile = new File(diskCacheDirectory, cachedFile.getName() + ".tmp");
+        try (OutputStream outputStream = new FileOutputStream(temporaryFile)) {
+            thumbnail.compress(Bitmap.CompressFormat.JPEG, JPEG_QUALITY, outputStream);
+        } catch (IOException exception) {
+            Log.w(TAG, "Could not cache thumbnail " + cachedFile.getName(), exception);
+            temporaryFile.delete();
+            return;
+        }
+        if (!temporaryFile.renameTo(cachedFile)) {
+            temporaryFile.delete();
+        }
+
+        if (diskWrites.incrementAndGet() % WRITES_BETWEEN_DISK_TRIMS == 0) {
+            trimDiskCache();
+        }
+    }
+
+    private void trimDiskCache() {
+        File[] files = diskCacheDirectory.listFiles();
+        if (files == null) {
+            return;
+        }
+
+        long totalBytes = 0;
+        for (File file : files) {
+            totalBytes += file.length();
+        }
+        if (totalBytes <= MAX_DISK_CACHE_BYTES) {
+            return;
+        }
+
+        Arrays.sort(files, (first, second) -> Long.compare(first.lastModified(), second.lastModified()));
+        for (File file : files) {
+            if (totalBytes <= MAX_DISK_CACHE_BYTES) {
+                break;
+            }
+            long length = file.length();
+            if (file.delete()) {
+                totalBytes -= length;
+            }
+        }
+    }
+
+    private static String cacheKey(String imagePath, long lastModified, int targetWidth) {
+        return imagePath + "|" + lastModified + "|" + targetWidth;
+    }
+
+    private static String diskKey(String cacheKey) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(cacheKey.getBytes(StandardCharsets.UTF_8));
+            StringBuilder key = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                key.append(String.format("%02x", b));
+            }
+            return key.toString();
+        } catch (NoSuchAlgorithmException exception) {
+            return Integer.toHexString(cacheKey.hashCode());
+        }
+    }
+}
@@ -2,9 +2,9 @@ package com.example.note.listeners;
 
 import android.view.View;
 
-import com.example.note.entities.Note;
+import com.example.note.entities.NoteSummary;
 
 public interface NoteListener {
-    void onNoteClicked(Note note, int position);
-    void onNoteLongClicked(Note note, int position, View view);
+    void onNoteClicked(NoteSummary note);
+    void onNoteLongClicked(NoteSummary note, View view);
 }
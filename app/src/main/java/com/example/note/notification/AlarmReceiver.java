@@ -5,47 +5,33 @@ import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
 
-import androidx.core.app.NotificationCompat;
-import androidx.core.app.NotificationManagerCompat;
-
-import com.example.note.R;
-import com.example.note.activities.MainActivity;
-
-import java.util.Random;
+import com.example.note.repository.NoteRepository;
 
 public class AlarmReceiver extends BroadcastReceiver {
 
-    private static String notificationTitle = "title";
-    private static String notificationContent = "content";
+    // There is only ever one reminder alarm, see ReminderScheduler.
+    private static final int ALARM_REQUEST_CODE = 0;
 
-    public static void setNotificationTitle(String title) {
-        notificationTitle = title;
-    }
-
-    public static void setNotificationContent(String content) {
-        notificationContent = content;
+    public static PendingIntent createAlarmIntent(Context context) {
+        Intent intent = new Intent(context, AlarmReceiver.class);
+        return PendingIntent.getBroadcast(context, ALARM_REQUEST_CODE, intent,
+                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
     }
 
     @Override
     public void onReceive(Context context, Intent intent) {
-        Intent i = new Intent(context, MainActivity.class);
-        intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
-        PendingIntent pendingIntent = PendingIntent.getActivity(context, 0, i, 0);
-
-        NotificationCompat.Builder builder = new NotificationCompat.Builder(context, "noteNotification")
-                .setSmallIcon(R.drawable.ic_launcher_foreground)
-                .setContentTitle(notificationTitle)
-                .setContentText(notificationContent)
-                .setPriority(NotificationCompat.PRIORITY_HIGH)
-                .setContentIntent(pendingIntent);
-
-        NotificationManagerCompat notificationManagerCompat = NotificationManagerCompat.from(context);
-        notificationManagerCompat.notify(generateRandom(), builder.build());
-    }
-
-    private int generateRandom() {
-        Random random = new Random();
-        return random.nextInt(9999 - 1000) + 1000;
+        PendingResult pendingResult = goAsync();
+        boolean delivering = false;
+        try {
+            NoteRepository.getInstance(context).deliverDueReminders(new ReminderNotifier(context),
+                    delivered -> pendingResult.finish());
+            delivering = true;
+        } finally {
+            // The callback finishes the broadcast once the reminders are delivered; if they couldn't even be
+            // queued, it is finished here.
+            if (!delivering) {
+                pendingResult.finish();
+            }
+        }
     }
 }
-
@@ -0,0 +1,21 @@
+package com.example.note.notification;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+
+import com.example.note.repository.NoteRepository;
+
+// Alarms don't survive a reboot; this arms the next reminder again from the database. Reminders that fell due
+// while the device was off are delivered right away.
+public class BootReceiver extends BroadcastReceiver {
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        if (!Intent.ACTION_BOOT_COMPLETED.equals(intent.getAction())) {
+            return;
+        }
+        PendingResult pendingResult = goAsync();
+        NoteRepository.getInstance(context).rearmReminders(result -> pendingResult.finish());
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.note.notification;
+
+import android.app.Notification;
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Build;
+
+import androidx.core.app.NotificationCompat;
+import androidx.core.app.NotificationManagerCompat;
+import androidx.core.app.TaskStackBuilder;
+
+import com.example.note.R;
+import com.example.note.activities.MainActivity;
+import com.example.note.activities.NoteActivity;
+import com.example.note.entities.DueReminder;
+
+import java.util.List;
+
+// Posts a batch of due reminders as one notification group. Only one notification per batch makes a sound:
+// the reminder itself when it is alone, otherwise the group summary.
+public class ReminderNotifier {
+
+    public static final String CHANNEL_ID = "noteNotification";
+
+    private static final String GROUP_KEY = "com.example.note.REMINDERS";
+    private static final String REMINDER_TAG = "reminder";
+    private static final String SUMMARY_TAG = "reminderSummary";
+    private static final int SUMMARY_ID = 0;
+    private static final int MAX_SUMMARY_LINES = 5;
+
+    private final Context context;
+    private final NotificationManagerCompat notificationManager;
+
+    public ReminderNotifier(Context context) {
+        this.context = context;
+        this.notificationManager = NotificationManagerCompat.from(context);
+    }
+
+    public static void createNotificationChannel(Context context) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            CharSequence name = "noteNotificationReminderChannel";
+            String description = "Channel for note notifications";
+            int importance = NotificationManager.IMPORTANCE_HIGH;
+            NotificationChannel channel = new NotificationChannel(CHANNEL_ID, name, importance);
+            channel.setDescription(description);
+
+            NotificationManager notificationManager = context.getSystemService(NotificationManager.class);
+            notificationManager.createNotificationChannel(channel);
+        }
+    }
+
+    // A note has at most one reminder, so its id also identifies the notification; a later reminder for the
+    // same note replaces its earlier notification instead of adding another.
+    static int notificationId(long noteId) {
+        return (int) (noteId ^ (noteId >>> 32));
+    }
+
+    public void notify(List<DueReminder> reminders) {
+        if (reminders.isEmpty()) {
+            return;
+        }
+        createNotificationChannel(context);
+
+        boolean grouped = reminders.size() > 1;
+        for (DueReminder reminder : reminders) {
+            notificationManager.notify(REMINDER_TAG, notificationId(reminder.getNoteId()),
+                    buildReminderNotification(reminder, grouped));
+        }
+        if (grouped) {
+            notificationManager.notify(SUMMARY_TAG, SUMMARY_ID, buildSummaryNotification(reminders));
+        }
+    }
+
+    private Notification buildReminderNotification(DueReminder reminder, boolean grouped) {
+        Intent noteIntent = new Intent(context, NoteActivity.class);
+        noteIntent.putExtra(NoteActivity.EXTRA_NOTE_ID, reminder.getNoteId());
+        PendingIntent pendingIntent = TaskStackBuilder.create(context)
+                .addNextIntentWithParentStack(noteIntent)
+                .getPendingIntent(notificationId(reminder.getNoteId()),
+                        PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
+
+        NotificationCompat.Builder builder = new NotificationCompat.Builder(context, CHANNEL_ID)
+                .setSmallIcon(R.drawable.ic_launcher_foreground)
+                .setContentTitle(reminder.getTitle())
+                .setContentText(reminder.getPreview())
+                .setPriority(NotificationCompat.PRIORITY_HIGH)
+                .setWhen(reminder.getDueAt())
+                .setShowWhen(true)
+                .setAutoCancel(true)
+                .setGroup(GROUP_KEY)
+                .setContentIntent(pendingIntent);
+        if (grouped) {
+            builder.setGroupAlertBehavior(NotificationCompat.GROUP_ALERT_SUMMARY);
+        }
+        return builder.build();
+    }
+
+    private Notification buildSummaryNotification(List<DueReminder> reminders) {
+        Intent mainIntent = new Intent(context, MainActivity.class);
+        PendingIntent pendingIntent = PendingIntent.getActivity(context, SUMMARY_ID, mainIntent,
+                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
+
+        String summary = context.getResources().getQuantityString(R.plurals.reminders_summary, reminders.size(), reminders.size());
+        NotificationCompat.InboxStyle inboxStyle = new NotificationCompat.InboxStyle().setSummaryText(summary);
+        for (int i = 0; i < reminders.size() && i < MAX_SUMMARY_LINES; i++) {
+            inboxStyle.addLine(reminders.get(i).getTitle());
+        }
+
+        return new NotificationCompat.Builder(context, CHANNEL_ID)
+                .setSmallIcon(R.drawable.ic_launcher_foreground)
+                .setContentTitle(summary)
+                .setContentText(reminders.get(0).getTitle())
+                .setStyle(inboxStyle)
+                .setPriority(NotificationCompat.PRIORITY_HIGH)
+                .setAutoCancel(true)
+                .setGroup(GROUP_KEY)
+                .setGroupSummary(true)
+                .setContentIntent(pendingIntent)
+                .build();
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.note.notification;
+
+import android.app.AlarmManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Build;
+
+import com.example.note.dao.NoteDao;
+
+// Keeps a single alarm armed, for the earliest pending reminder. The note_reminders table, indexed by due time,
+// is the queue; any number of reminders costs one pending alarm, and each wakeup delivers a whole batch.
+public class ReminderScheduler {
+
+    // How late the user lets reminders be, in the order of R.array.reminder_delivery_windows.
+    public static final long[] DELIVERY_WINDOWS_MILLIS = {0, 10 * 60 * 1000, 15 * 60 * 1000, 60 * 60 * 1000};
+
+    private static final String PREFERENCES_NAME = "reminders";
+    private static final String KEY_DELIVERY_WINDOW = "deliveryWindowMillis";
+    private static final long DEFAULT_DELIVERY_WINDOW_MILLIS = 10 * 60 * 1000;
+    // From API 31 the system stretches a shorter alarm window to ten minutes, and a zero length makes the alarm
+    // exact, so no window is armed shorter than this.
+    private static final long MIN_WINDOW_LENGTH_MILLIS = 10 * 60 * 1000;
+
+    private final Context context;
+    private final NoteDao noteDao;
+    private final SharedPreferences preferences;
+
+    public ReminderScheduler(Context context, NoteDao noteDao) {
+        this.context = context;
+        this.noteDao = noteDao;
+        this.preferences = context.getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE);
+    }
+
+    // A window stored before the shortest one was ten minutes is read as ten minutes.
+    public long getDeliveryWindowMillis() {
+        long deliveryWindowMillis = preferences.getLong(KEY_DELIVERY_WINDOW, DEFAULT_DELIVERY_WINDOW_MILLIS);
+        return deliveryWindowMillis > 0 ? Math.max(deliveryWindowMillis, MIN_WINDOW_LENGTH_MILLIS) : 0;
+    }
+
+    public void setDeliveryWindowMillis(long deliveryWindowMillis) {
+        preferences.edit().putLong(KEY_DELIVERY_WINDOW, deliveryWindowMillis).apply();
+    }
+
+    // Runs on the repository's writer thread, after every change to the reminders. With a delivery window the
+    // alarm is inexact and the system can batch it with other wakeups; without one it is exact when allowed.
+    // The window closes a delivery window after the earliest reminder and opens when the last reminder that still
+    // leaves it MIN_WINDOW_LENGTH_MILLIS long is due, so reminders set a few minutes apart go out with one wakeup,
+    // none of them early and none more than a delivery window late.
+    public void rearm() {
+        Long nextDueAt = noteDao.getNextReminderDueAt();
+        AlarmManager alarmManager = context.getSystemService(AlarmManager.class);
+        PendingIntent alarmIntent = AlarmReceiver.createAlarmIntent(context);
+        if (nextDueAt == null) {
+            alarmManager.cancel(alarmIntent);
+            return;
+        }
+
+        long deliveryWindowMillis = getDeliveryWindowMillis();
+        if (deliveryWindowMillis > 0) {
+            long windowEnd = nextDueAt + deliveryWindowMillis;
+            long windowStart = noteDao.getLastReminderDueAt(windowEnd - MIN_WINDOW_LENGTH_MILLIS);
+            alarmManager.setWindow(AlarmManager.RTC_WAKEUP, windowStart, windowEnd - windowStart, alarmIntent);
+        } else if (Build.VERSION.SDK_INT < Build.VERSION_CODES.S || alarmManager.canScheduleExactAlarms()) {
+            alarmManager.setExactAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, nextDueAt, alarmIntent);
+        } else {
+            alarmManager.setAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, nextDueAt, alarmIntent);
+        }
+    }
+}
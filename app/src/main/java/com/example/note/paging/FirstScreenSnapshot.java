@@ -0,0 +1,139 @@
+package com.example.note.paging;
+
+import com.example.note.entities.NoteSummary;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+// The summaries of the first screen of notes, kept in a small binary file so the list can be drawn on launch
+// before the database is open. The file is a header (magic, version, count) followed by one record per note:
+// id, createdAt, updatedAt, color, then title, preview and imagePath as length-prefixed UTF-8, -1 for null.
+public class FirstScreenSnapshot {
+
+    public static final int MAX_NOTES = 24;
+
+    private static final int MAGIC = 0x4E534E50;
+    private static final int VERSION = 1;
+
+    private final File file;
+    private byte[] lastWritten;
+
+    public FirstScreenSnapshot(File file) {
+        this.file = file;
+    }
+
+    // An empty list when there is no snapshot yet or it can't be read; the first page from the database
+    // replaces whatever is shown either way.
+    public List<NoteSummary> read() {
+        if (!file.exists()) {
+            return Collections.emptyList();
+        }
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+             FileChannel channel = randomAccessFile.getChannel()) {
+            return decode(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (IOException | RuntimeException exception) {
+            return Collections.emptyList();
+        }
+    }
+
+    // Replaces the snapshot through a temporary file, so a crash mid-write leaves the previous one in place.
+    // Skips the write when the first screen hasn't changed since the last one.
+    public void write(List<NoteSummary> notes) throws IOException {
+        byte[] encoded = encode(notes.subList(0, Math.min(notes.size(), MAX_NOTES)));
+        if (Arrays.equals(encoded, lastWritten)) {
+            return;
+        }
+
+        File temporaryFile = new File(file.getPath() + ".tmp");
+        try (FileOutputStream outputStream = new FileOutputStream(temporaryFile)) {
+            outputStream.write(encoded);
+            outputStream.getFD().sync();
+        }
+        if (!temporaryFile.renameTo(file)) {
+            throw new IOException("Could not replace " + file);
+        }
+        lastWritten = encoded;
+    }
+
+    static byte[] encode(List<NoteSummary> notes) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+        output.writeInt(MAGIC);
+        output.writeInt(VERSION);
+        output.writeInt(notes.size());
+        for (NoteSummary note : notes) {
+            output.writeLong(note.getId());
+            output.writeLong(note.getCreatedAt());
+            output.writeLong(note.getUpdatedAt());
+            output.writeInt(note.getColor());
+            writeString(output, note.getTitle());
+            writeString(output, note.getPreview());
+            writeString(output, note.getImagePath());
+        }
+        output.flush();
+        return bytes.toByteArray();
+    }
+
+    static List<NoteSummary> decode(ByteBuffer buffer) {
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                return Collections.emptyList();
+            }
+            int count = buffer.getInt();
+            if (count < 0 || count > MAX_NOTES) {
+                return Collections.emptyList();
+            }
+
+            List<NoteSummary> notes = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                NoteSummary note = new NoteSummary();
+                note.setId(buffer.getLong());
+                note.setCreatedAt(buffer.getLong());
+                note.setUpdatedAt(buffer.getLong());
+                note.setColor(buffer.getInt());
+                note.setTitle(readString(buffer));
+                note.setPreview(readString(buffer));
+                note.setImagePath(readString(buffer));
+                notes.add(note);
+            }
+            return notes;
+        } catch (BufferUnderflowException | IllegalArgumentException exception) {
+            return Collections.emptyList();
+        }
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        if (value == null) {
+            output.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
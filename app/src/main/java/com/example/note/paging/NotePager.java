@@ -0,0 +1,148 @@
+package com.example.note.paging;
+
+import com.example.note.entities.NoteSummary;
+import com.example.note.repository.NoteRepository;
+
+import java.util.List;
+
+public class NotePager {
+
+    public interface PageListener {
+        void onPageLoaded(List<NoteSummary> page, boolean isFirstPage);
+
+        // Called after the notes table changed, with the loaded notes that were updated or added, and the ids of
+        // every note from oldestId up when some of them were deleted, null otherwise.
+        void onWindowChanged(List<NoteSummary> changedNotes, List<Long> windowIds, long oldestId);
+
+        // Called on every change to the notes table, before the window is read again, including changes to notes
+        // outside the loaded window.
+        void onNotesInvalidated();
+    }
+
+    private final NoteRepository noteRepository;
+    private final int pageSize;
+    private final int prefetchDistance;
+    private final PageListener pageListener;
+
+    private long lastLoadedId;
+    // What the window held when it was last read, so a reload only has to read what changed since.
+    private long newestLoadedId;
+    private long lastUpdatedAt;
+    private int loadedCount;
+    private boolean loading;
+    private boolean endReached;
+    private NoteRepository.Request pageRequest;
+    private NoteRepository.Request windowRequest;
+    private NoteRepository.Request notesSubscription;
+
+    public NotePager(NoteRepository noteRepository, int pageSize, int prefetchDistance, PageListener pageListener) {
+        this.noteRepository = noteRepository;
+        this.pageSize = pageSize;
+        this.prefetchDistance = prefetchDistance;
+        this.pageListener = pageListener;
+    }
+
+    public void loadFirstPage() {
+        cancelPageRequest();
+        lastLoadedId = Long.MAX_VALUE;
+        newestLoadedId = 0;
+        lastUpdatedAt = 0;
+        loadedCount = 0;
+        endReached = false;
+        loadPage(true);
+
+        if (notesSubscription == null) {
+            notesSubscription = noteRepository.observeNotes(this::reloadWindow);
+        }
+    }
+
+    public void loadNextPage() {
+        if (loading || endReached) {
+            return;
+        }
+        loadPage(false);
+    }
+
+    public void onScrolled(int lastVisiblePosition, int itemCount) {
+        if (itemCount - 1 - lastVisiblePosition <= prefetchDistance) {
+            loadNextPage();
+        }
+    }
+
+    public boolean isEndReached() {
+        return endReached;
+    }
+
+    public void close() {
+        cancelPageRequest();
+        if (windowRequest != null) {
+            windowRequest.cancel();
+            windowRequest = null;
+        }
+        if (notesSubscription != null) {
+            notesSubscription.cancel();
+            notesSubscription = null;
+        }
+    }
+
+    private void cancelPageRequest() {
+        if (pageRequest != null) {
+            pageRequest.cancel();
+            pageRequest = null;
+        }
+    }
+
+    private void loadPage(boolean isFirstPage) {
+        loading = true;
+
+        NoteRepository.Callback<List<NoteSummary>> callback = page -> {
+            pageRequest = null;
+            loading = false;
+            if (page == null) {
+                return;
+            }
+            endReached = page.size() < pageSize;
+            if (!page.isEmpty()) {
+                lastLoadedId = page.get(page.size() - 1).getId();
+            }
+            loadedCount += page.size();
+            recordLoaded(page);
+            pageListener.onPageLoaded(page, isFirstPage);
+        };
+
+        pageRequest = isFirstPage
+                ? noteRepository.getFirstNotes(pageSize, callback)
+                : noteRepository.getNotesBefore(lastLoadedId, pageSize, callback);
+    }
+
+    private void reloadWindow() {
+        pageListener.onNotesInvalidated();
+        if (lastLoadedId == Long.MAX_VALUE) {
+            loadFirstPage();
+            return;
+        }
+
+        final long oldestId = lastLoadedId;
+        if (windowRequest != null) {
+            windowRequest.cancel();
+        }
+        windowRequest = noteRepository.getWindowChanges(oldestId, newestLoadedId, lastUpdatedAt, loadedCount, changes -> {
+            windowRequest = null;
+            if (changes == null) {
+                return;
+            }
+            loadedCount = changes.getCount();
+            recordLoaded(changes.getChangedNotes());
+            if (!changes.getChangedNotes().isEmpty() || changes.getWindowIds() != null) {
+                pageListener.onWindowChanged(changes.getChangedNotes(), changes.getWindowIds(), oldestId);
+            }
+        });
+    }
+
+    private void recordLoaded(List<NoteSummary> notes) {
+        for (NoteSummary note : notes) {
+            newestLoadedId = Math.max(newestLoadedId, note.getId());
+            lastUpdatedAt = Math.max(lastUpdatedAt, note.getUpdatedAt());
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.note.paging;
+
+import com.example.note.entities.NoteSummary;
+
+import java.util.List;
+
+// What changed in the loaded window since the pager last looked: the notes updated or added since, and, only when
+// notes were deleted from it, the ids of every note still in the window.
+public class WindowChanges {
+    private final List<NoteSummary> changedNotes;
+    private final List<Long> windowIds;
+    private final int count;
+
+    public WindowChanges(List<NoteSummary> changedNotes, List<Long> windowIds, int count) {
+        this.changedNotes = changedNotes;
+        this.windowIds = windowIds;
+        this.count = count;
+    }
+
+    public List<NoteSummary> getChangedNotes() {
+        return changedNotes;
+    }
+
+    // Null when no note left the window.
+    public List<Long> getWindowIds() {
+        return windowIds;
+    }
+
+    public int getCount() {
+        return count;
+    }
+}
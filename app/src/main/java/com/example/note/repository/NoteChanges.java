@@ -0,0 +1,113 @@
+package com.example.note.repository;
+
+import com.example.note.entities.NoteChunk;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+// A snapshot of the editor fields that changed since the last save. noteId is shared by every snapshot of
+// one editing session; it is 0 until the writer thread has inserted the note.
+public class NoteChanges {
+
+    public static final int TITLE = 1;
+    public static final int CONTENT = 1 << 1;
+    public static final int COLOR = 1 << 2;
+    public static final int IMAGE_PATH = 1 << 3;
+    public static final int WEB_LINK = 1 << 4;
+    public static final int ALL = TITLE | CONTENT | COLOR | IMAGE_PATH | WEB_LINK;
+
+    private final AtomicLong noteId;
+    private final int dirtyFields;
+    private final long createdAt;
+    private final long updatedAt;
+
+    private String title;
+    private String content;
+    private int color;
+    private String imagePath;
+    private String webLink;
+    // Set instead of content for notes whose content is stored in chunks; the chunks get their noteId on the writer.
+    private List<NoteChunk> chunkWrites = Collections.emptyList();
+    private List<Long> deletedChunkPositions = Collections.emptyList();
+
+    public NoteChanges(AtomicLong noteId, int dirtyFields, long createdAt, long updatedAt) {
+        this.noteId = noteId;
+        this.dirtyFields = dirtyFields;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+    }
+
+    public boolean isDirty(int field) {
+        return (dirtyFields & field) != 0;
+    }
+
+    public AtomicLong getNoteId() {
+        return noteId;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public long getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+    }
+
+    public int getColor() {
+        return color;
+    }
+
+    public void setColor(int color) {
+        this.color = color;
+    }
+
+    public String getImagePath() {
+        return imagePath;
+    }
+
+    public void setImagePath(String imagePath) {
+        this.imagePath = imagePath;
+    }
+
+    public String getWebLink() {
+        return webLink;
+    }
+
+    public void setWebLink(String webLink) {
+        this.webLink = webLink;
+    }
+
+    public boolean hasChunkChanges() {
+        return !chunkWrites.isEmpty() || !deletedChunkPositions.isEmpty();
+    }
+
+    public List<NoteChunk> getChunkWrites() {
+        return chunkWrites;
+    }
+
+    public List<Long> getDeletedChunkPositions() {
+        return deletedChunkPositions;
+    }
+
+    public void setChunkChanges(List<NoteChunk> chunkWrites, List<Long> deletedChunkPositions) {
+        this.chunkWrites = chunkWrites;
+        this.deletedChunkPositions = deletedChunkPositions;
+    }
+}
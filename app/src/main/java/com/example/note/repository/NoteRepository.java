@@ -0,0 +1,546 @@
+package com.example.note.repository;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.util.LruCache;
+
+import com.example.note.backup.ImportResult;
+import com.example.note.backup.NoteBackup;
+import com.example.note.chunks.ChunkTracker;
+import com.example.note.dao.NoteDao;
+import com.example.note.history.NoteHistory;
+import com.example.note.notification.ReminderNotifier;
+import com.example.note.notification.ReminderScheduler;
+import com.example.note.paging.FirstScreenSnapshot;
+import com.example.note.paging.WindowChanges;
+import com.example.note.database.NoteDatabase;
+import com.example.note.diagnostics.DatabaseDiagnostics;
+import com.example.note.entities.Note;
+import com.example.note.entities.NoteChunk;
+import com.example.note.entities.NoteReminder;
+import com.example.note.entities.NoteRevisionSummary;
+import com.example.note.entities.NoteSummary;
+import com.example.note.search.NoteSearchEngine;
+import com.example.note.util.NotePreview;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class NoteRepository {
+
+    public interface Callback<T> {
+        void onResult(T result);
+    }
+
+    public static class Request {
+        private volatile boolean cancelled;
+        private Future<?> future;
+
+        public void cancel() {
+            cancelled = true;
+            if (future != null) {
+                future.cancel(false);
+            }
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    private static final int READ_THREADS = 2;
+    private static final long READ_THREAD_KEEP_ALIVE_SECONDS = 30;
+    private static final long INVALIDATION_COALESCE_WINDOW_MILLIS = 50;
+    private static final int SUMMARY_CACHE_SIZE = 500;
+    private static final String TAG = "NoteRepository";
+
+    private static NoteRepository noteRepository;
+
+    private final NoteDatabase noteDatabase;
+    private final NoteDao noteDao;
+    private final NoteSearchEngine noteSearchEngine;
+    private final NoteBackup noteBackup;
+    private final NoteHistory noteHistory;
+    private final ReminderScheduler reminderScheduler;
+    private final FirstScreenSnapshot firstScreenSnapshot;
+    private final DatabaseDiagnostics databaseDiagnostics = DatabaseDiagnostics.getInstance();
+
+    private final ExecutorService writeExecutor = Executors.newSingleThreadExecutor(new NamedThreadFactory("note-io-write"));
+    // The snapshot is written and synced to disk on a thread of its own, so database writes don't wait for it.
+    private final ExecutorService snapshotExecutor = Executors.newSingleThreadExecutor(new NamedThreadFactory("note-io-snapshot"));
+    // Imports and exports take as long as the backup is large, so they run one at a time on a thread of their own
+    // instead of holding a read thread that list paging and search need.
+    private final ExecutorService backupExecutor = Executors.newSingleThreadExecutor(new NamedThreadFactory("note-io-backup"));
+    private final ThreadPoolExecutor readExecutor = new ThreadPoolExecutor(
+            READ_THREADS,
+            READ_THREADS,
+            READ_THREAD_KEEP_ALIVE_SECONDS,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(),
+            new NamedThreadFactory("note-io-read"));
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private final Map<String, Request> latestReads = new HashMap<>();
+    private final LruCache<Long, NoteSummary> summaryCache = new LruCache<>(SUMMARY_CACHE_SIZE);
+
+    private final Object writeLock = new Object();
+    private long submittedWrites;
+    private long completedWrites;
+
+    public static synchronized NoteRepository getInstance(Context context) {
+        if (noteRepository == null) {
+            Context applicationContext = context.getApplicationContext();
+            NoteDatabase noteDatabase = NoteDatabase.getNoteDatabase(applicationContext);
+            noteRepository = new NoteRepository(
+                    noteDatabase,
+                    new File(applicationContext.getFilesDir(), "images"),
+                    new ReminderScheduler(applicationContext, noteDatabase.noteDao()),
+                    new FirstScreenSnapshot(new File(applicationContext.getFilesDir(), "first_screen.snapshot")));
+        }
+        return noteRepository;
+    }
+
+    private NoteRepository(NoteDatabase noteDatabase, File imagesDir, ReminderScheduler reminderScheduler,
+                           FirstScreenSnapshot firstScreenSnapshot) {
+        this.noteDatabase = noteDatabase;
+        this.noteDao = noteDatabase.noteDao();
+        this.noteSearchEngine = new NoteSearchEngine(noteDao);
+        this.noteBackup = new NoteBackup(noteDao, imagesDir);
+        this.noteHistory = new NoteHistory(noteDao);
+        this.reminderScheduler = reminderScheduler;
+        this.firstScreenSnapshot = firstScreenSnapshot;
+        this.readExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    public NoteSearchEngine getSearchEngine() {
+        return noteSearchEngine;
+    }
+
+    public Request getFirstNotes(int limit, Callback<List<NoteSummary>> callback) {
+        return read(() -> cacheSummaries(noteDao.getFirstNotes(limit)), callback);
+    }
+
+    public Request getNotesBefore(long beforeId, int limit, Callback<List<NoteSummary>> callback) {
+        return read(() -> cacheSummaries(noteDao.getNotesBefore(beforeId, limit)), callback);
+    }
+
+    // Reads only the rows that changed in the window instead of the whole window. The ids are read too only when
+    // the window holds fewer notes than expected, which means some were deleted.
+    public Request getWindowChanges(long oldestId, long newestId, long since, int expectedCount,
+                                    Callback<WindowChanges> callback) {
+        return read(() -> {
+            List<NoteSummary> changedNotes = cacheSummaries(noteDao.getNotesChangedSince(oldestId, newestId, since));
+            int addedNotes = 0;
+            for (NoteSummary note : changedNotes) {
+                if (note.getId() > newestId) {
+                    addedNotes++;
+                }
+            }
+            int count = noteDao.countNotesFrom(oldestId);
+            List<Long> windowIds = count == expectedCount + addedNotes ? null : noteDao.getNoteIdsFrom(oldestId);
+            return new WindowChanges(changedNotes, windowIds, count);
+        }, callback);
+    }
+
+    // Read on the main thread at launch: the snapshot is a few KB, memory-mapped, and doesn't need the database.
+    public List<NoteSummary> readFirstScreenSnapshot() {
+        return cacheSummaries(firstScreenSnapshot.read());
+    }
+
+    // Written in order, outside the read barrier, so loads never wait for it.
+    public void saveFirstScreenSnapshot(List<NoteSummary> notes) {
+        final List<NoteSummary> firstScreen = new ArrayList<>(notes.subList(0, Math.min(notes.size(), FirstScreenSnapshot.MAX_NOTES)));
+        snapshotExecutor.execute(() -> {
+            try {
+                firstScreenSnapshot.write(firstScreen);
+            } catch (IOException exception) {
+                Log.e(TAG, "Could not save the first screen snapshot", exception);
+            }
+        });
+    }
+
+    // Summaries of recently listed notes, so the editor can show a note before its full row is loaded.
+    public NoteSummary getCachedSummary(long id) {
+        return summaryCache.get(id);
+    }
+
+    private List<NoteSummary> cacheSummaries(List<NoteSummary> summaries) {
+        for (NoteSummary summary : summaries) {
+            summaryCache.put(summary.getId(), summary);
+        }
+        return summaries;
+    }
+
+    // Calls onChanged on the main thread after writes to the notes table commit, coalescing bursts of writes.
+    public Request observeNotes(Runnable onChanged) {
+        return new TableSubscription(
+                noteDatabase.getInvalidationTracker(),
+                mainHandler,
+                INVALIDATION_COALESCE_WINDOW_MILLIS,
+                onChanged,
+                "notes");
+    }
+
+    public Request getNoteById(long id, Callback<Note> callback) {
+        return read(() -> noteDao.getNoteById(id), callback);
+    }
+
+    public void insertNote(Note note, Callback<Long> callback) {
+        note.setPreview(NotePreview.of(note.getContent()));
+        write(() -> noteDao.insertIndexedNote(note), callback);
+    }
+
+    public void updateNote(Note note, Callback<Integer> callback) {
+        note.setPreview(NotePreview.of(note.getContent()));
+        write(() -> noteDao.updateIndexedNote(note), callback);
+    }
+
+    // Inserts the note on its first save; afterwards only the dirty fields are written, instead of replacing the row.
+    public void saveChanges(NoteChanges changes, Callback<Long> callback) {
+        write(() -> {
+            noteDatabase.runInTransaction(() -> applyChanges(changes));
+            return changes.getNoteId().get();
+        }, callback);
+    }
+
+    private void applyChanges(NoteChanges changes) {
+        final long id = changes.getNoteId().get();
+        final long updatedAt = changes.getUpdatedAt();
+
+        if (id == 0) {
+            Note note = new Note();
+            note.setTitle(changes.getTitle());
+            note.setContent(changes.getContent());
+            note.setPreview(NotePreview.of(changes.getContent()));
+            note.setColor(changes.getColor());
+            note.setImagePath(changes.getImagePath());
+            note.setWebLink(changes.getWebLink());
+            note.setCreatedAt(changes.getCreatedAt());
+            note.setUpdatedAt(updatedAt);
+            changes.getNoteId().set(noteDao.insertIndexedNote(note));
+            return;
+        }
+
+        // One UPDATE of the dirty columns, so the notes_fts triggers, scoped to the title and content, run at most
+        // once per save and not at all when neither changed.
+        ContentValues values = new ContentValues();
+        if (changes.isDirty(NoteChanges.TITLE)) {
+            values.put("title", changes.getTitle());
+        }
+        if (changes.isDirty(NoteChanges.CONTENT)) {
+            String storedContent = null;
+            boolean chunked = false;
+            if (changes.hasChunkChanges()) {
+                for (NoteChunk chunk : changes.getChunkWrites()) {
+                    chunk.setNoteId(id);
+                }
+                storedContent = noteDao.updateChunks(id, changes.getChunkWrites(), changes.getDeletedChunkPositions());
+                chunked = true;
+            } else if (changes.getContent() != null) {
+                storedContent = noteDao.replaceChunks(id, changes.getContent());
+                chunked = ChunkTracker.needsChunks(changes.getContent());
+            }
+            if (storedContent != null) {
+                values.put("content", storedContent);
+                values.put("preview", NotePreview.of(storedContent));
+                values.put("chunked", chunked);
+            }
+        }
+        if (changes.isDirty(NoteChanges.COLOR)) {
+            values.put("color", changes.getColor());
+        }
+        if (changes.isDirty(NoteChanges.IMAGE_PATH)) {
+            values.put("imagePath", changes.getImagePath());
+        }
+        if (changes.isDirty(NoteChanges.WEB_LINK)) {
+            values.put("webLink", changes.getWebLink());
+        }
+        if (values.size() == 0) {
+            return;
+        }
+        values.put("updatedAt", updatedAt);
+        noteDatabase.getOpenHelper().getWritableDatabase()
+                .update("notes", SQLiteDatabase.CONFLICT_NONE, values, "id = ?", new Object[]{id});
+    }
+
+    // Delivers whether a revision was recorded; there is none when the note is unsaved or unchanged. The trigram
+    // index is brought up to date here rather than on every save, and only when the text was saved since the
+    // last checkpoint.
+    public void recordRevision(AtomicLong noteId, boolean textChanged, Callback<Boolean> callback) {
+        final long createdAt = System.currentTimeMillis();
+        write(() -> {
+            long id = noteId.get();
+            return id != 0 && noteDatabase.runInTransaction(() -> {
+                if (textChanged) {
+                    noteDao.reindexNote(id);
+                }
+                return noteHistory.recordRevision(id, createdAt);
+            });
+        }, callback);
+    }
+
+    // Pages through the stored chunks of a chunked note; a negative limit loads all the remaining ones.
+    public Request getChunksAfter(long noteId, long afterPosition, int limit, Callback<List<NoteChunk>> callback) {
+        return read(() -> noteDao.getChunksAfter(noteId, afterPosition, limit), callback);
+    }
+
+    public Request getRevisions(long noteId, Callback<List<NoteRevisionSummary>> callback) {
+        return read(() -> noteDao.getRevisions(noteId), callback);
+    }
+
+    // Writes the revision back into the note; the editor then reloads the note as it would open it.
+    public void restoreRevision(long noteId, long revisionId, Callback<Boolean> callback) {
+        final long updatedAt = System.currentTimeMillis();
+        write(() -> noteDatabase.runInTransaction(() -> {
+            boolean restored = noteHistory.restoreRevision(noteId, revisionId, updatedAt);
+            if (restored) {
+                noteDao.reindexNote(noteId);
+            }
+            return restored;
+        }), callback);
+    }
+
+    // Replaces any reminder the note already has. Delivers false if the note hasn't been saved, as it has no id yet.
+    public void setReminder(AtomicLong noteId, long dueAt, Callback<Boolean> callback) {
+        write(() -> {
+            long id = noteId.get();
+            if (id == 0) {
+                return false;
+            }
+            noteDao.insertReminder(new NoteReminder(id, dueAt));
+            reminderScheduler.rearm();
+            return true;
+        }, callback);
+    }
+
+    // Posts the reminders due by now and removes them from the queue in one transaction, then arms the alarm for
+    // the next one. If the process dies before the commit the reminders stay queued and are posted again, which
+    // replaces their notifications, rather than lost. Delivers false if the delivery failed.
+    public void deliverDueReminders(ReminderNotifier reminderNotifier, Callback<Boolean> callback) {
+        write(() -> {
+            try {
+                noteDatabase.runInTransaction(() -> {
+                    long now = System.currentTimeMillis();
+                    reminderNotifier.notify(noteDao.getDueReminders(now));
+                    noteDao.deleteDueReminders(now);
+                    reminderScheduler.rearm();
+                });
+                return true;
+            } catch (RuntimeException exception) {
+                Log.e(TAG, "Could not deliver reminders", exception);
+                return false;
+            }
+        }, callback);
+    }
+
+    public long getReminderDeliveryWindow() {
+        return reminderScheduler.getDeliveryWindowMillis();
+    }
+
+    public void setReminderDeliveryWindow(long deliveryWindowMillis, Callback<Void> callback) {
+        write(() -> {
+            reminderScheduler.setDeliveryWindowMillis(deliveryWindowMillis);
+            reminderScheduler.rearm();
+            return null;
+        }, callback);
+    }
+
+    public void rearmReminders(Callback<Void> callback) {
+        write(() -> {
+            reminderScheduler.rearm();
+            return null;
+        }, callback);
+    }
+
+    public void deleteNote(long id, Callback<Integer> callback) {
+        write(() -> noteDao.deleteNoteById(id), callback);
+    }
+
+    // For an editor whose note may still be waiting in the writer queue to be inserted.
+    public void deleteNote(AtomicLong noteId, Callback<Integer> callback) {
+        write(() -> noteDao.deleteNoteById(noteId.get()), callback);
+    }
+
+    public void deleteNotes(List<Long> ids, Callback<Integer> callback) {
+        write(() -> noteDao.deleteNotes(ids), callback);
+    }
+
+    public void recolorNotes(List<Long> ids, int color, Callback<Integer> callback) {
+        final long updatedAt = System.currentTimeMillis();
+        write(() -> noteDao.updateColors(ids, color, updatedAt), callback);
+    }
+
+    public void deleteAllNotes(Callback<Boolean> callback) {
+        write(() -> {
+            noteDao.deleteAllNotes();
+            return true;
+        }, callback);
+    }
+
+    // Delivers the number of notes written, or null if the backup could not be written.
+    public Request exportNotes(OutputStream outputStream, Callback<Integer> callback) {
+        return read(backupExecutor, () -> {
+            try {
+                return noteBackup.exportNotes(outputStream);
+            } catch (Exception exception) {
+                Log.e(TAG, "Export failed", exception);
+                return null;
+            }
+        }, callback);
+    }
+
+    // Reads the backup on the backup thread and inserts each batch as a write of its own, so autosaves and
+    // reminders run between batches instead of waiting for the whole import.
+    public Request importNotes(InputStream inputStream, Callback<ImportResult> callback) {
+        return read(backupExecutor, () -> {
+            ImportResult result = noteBackup.importNotes(inputStream, batch -> writeAndWait(() -> {
+                noteDao.insertIndexedNotes(batch);
+                return null;
+            }));
+            if (!result.isComplete()) {
+                Log.e(TAG, "Import stopped after " + result.getImportedNotes() + " notes", result.getFailure());
+            }
+            return result;
+        }, callback);
+    }
+
+    // Reads wait for every write submitted before them, so a reload after a save always sees the save. A read that
+    // fails is logged and delivers null, so callers don't wait forever.
+    public <T> Request read(Callable<T> query, Callback<T> callback) {
+        return read(readExecutor, query, callback);
+    }
+
+    private <T> Request read(ExecutorService executor, Callable<T> query, Callback<T> callback) {
+        final long writesToAwait;
+        synchronized (writeLock) {
+            writesToAwait = submittedWrites;
+        }
+
+        Request request = new Request();
+        request.future = executor.submit(() -> {
+            if (request.isCancelled()) {
+                return;
+            }
+            awaitWrites(writesToAwait);
+            T result;
+            try {
+                result = call(query);
+            } catch (RuntimeException exception) {
+                Log.e(TAG, "Read failed", exception);
+                result = null;
+            }
+            deliver(request, callback, result);
+        });
+        return request;
+    }
+
+    // Like read(), but cancels the previous request made with the same key.
+    public <T> Request readLatest(String key, Callable<T> query, Callback<T> callback) {
+        synchronized (latestReads) {
+            Request previousRequest = latestReads.get(key);
+            if (previousRequest != null) {
+                previousRequest.cancel();
+            }
+            Request request = read(query, callback);
+            latestReads.put(key, request);
+            return request;
+        }
+    }
+
+    // A write that fails is logged and delivers null, like a failed read, instead of taking down the writer thread.
+    public <T> void write(Callable<T> operation, Callback<T> callback) {
+        synchronized (writeLock) {
+            submittedWrites++;
+        }
+
+        writeExecutor.execute(() -> {
+            T result;
+            try {
+                result = runWrite(operation);
+            } catch (RuntimeException exception) {
+                Log.e(TAG, "Write failed", exception);
+                result = null;
+            }
+            deliver(null, callback, result);
+        });
+    }
+
+    // Runs the operation as a write of its own and waits for it, off the writer thread.
+    private <T> T writeAndWait(Callable<T> operation) throws InterruptedException {
+        synchronized (writeLock) {
+            submittedWrites++;
+        }
+
+        Future<T> future = writeExecutor.submit(() -> runWrite(operation));
+        try {
+            return future.get();
+        } catch (ExecutionException exception) {
+            Throwable cause = exception.getCause();
+            throw cause instanceof RuntimeException ? (RuntimeException) cause : new RuntimeException(cause);
+        }
+    }
+
+    private <T> T runWrite(Callable<T> operation) {
+        try {
+            return call(operation);
+        } finally {
+            synchronized (writeLock) {
+                completedWrites++;
+                writeLock.notifyAll();
+            }
+        }
+    }
+
+    private void awaitWrites(long writesToAwait) {
+        synchronized (writeLock) {
+            while (completedWrites < writesToAwait) {
+                try {
+                    writeLock.wait();
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private <T> void deliver(Request request, Callback<T> callback, T result) {
+        if (callback == null) {
+            return;
+        }
+        mainHandler.post(() -> {
+            if (request == null || !request.isCancelled()) {
+                callback.onResult(result);
+            }
+        });
+    }
+
+    private <T> T call(Callable<T> callable) {
+        try {
+            return databaseDiagnostics.measure(noteDatabase, callable);
+        } catch (RuntimeException exception) {
+            throw exception;
+        } catch (Exception exception) {
+            throw new RuntimeException(exception);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.note.repository;
+
+import android.os.Handler;
+
+import androidx.annotation.NonNull;
+import androidx.room.InvalidationTracker;
+
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Delivers at most one main thread callback per coalescing window, however many transactions touched the tables.
+class TableSubscription extends NoteRepository.Request {
+
+    private final InvalidationTracker invalidationTracker;
+    private final Handler mainHandler;
+    private final long coalesceWindowMillis;
+    private final AtomicBoolean dispatchPending = new AtomicBoolean();
+    private final Runnable dispatch;
+    private final InvalidationTracker.Observer observer;
+
+    TableSubscription(InvalidationTracker invalidationTracker, Handler mainHandler, long coalesceWindowMillis,
+                      Runnable onChanged, String... tables) {
+        this.invalidationTracker = invalidationTracker;
+        this.mainHandler = mainHandler;
+        this.coalesceWindowMillis = coalesceWindowMillis;
+        this.dispatch = () -> {
+            dispatchPending.set(false);
+            if (!isCancelled()) {
+                onChanged.run();
+            }
+        };
+        this.observer = new InvalidationTracker.Observer(tables) {
+            @Override
+            public void onInvalidated(@NonNull Set<String> invalidatedTables) {
+                if (!isCancelled() && dispatchPending.compareAndSet(false, true)) {
+                    TableSubscription.this.mainHandler.postDelayed(dispatch, TableSubscription.this.coalesceWindowMillis);
+                }
+            }
+        };
+        invalidationTracker.addObserver(observer);
+    }
+
+    @Override
+    public void cancel() {
+        super.cancel();
+        invalidationTracker.removeObserver(observer);
+        mainHandler.removeCallbacks(dispatch);
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.note.search;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Ignore;
+
+public class NoteMatch implements SearchQueries.RankedMatch {
+
+    @ColumnInfo(name = "noteId")
+    private long noteId;
+
+    // Set for a match in note_chunks_fts, whose only column is the content.
+    @ColumnInfo(name = "inChunk")
+    private boolean inChunk;
+
+    @ColumnInfo(name = "matchInfo")
+    private byte[] matchInfo;
+
+    @Ignore
+    private double score;
+
+    @Override
+    public long getNoteId() {
+        return noteId;
+    }
+
+    public void setNoteId(long noteId) {
+        this.noteId = noteId;
+    }
+
+    public boolean isInChunk() {
+        return inChunk;
+    }
+
+    public void setInChunk(boolean inChunk) {
+        this.inChunk = inChunk;
+    }
+
+    public byte[] getMatchInfo() {
+        return matchInfo;
+    }
+
+    public void setMatchInfo(byte[] matchInfo) {
+        this.matchInfo = matchInfo;
+    }
+
+    @Override
+    public double getScore() {
+        return score;
+    }
+
+    public void setScore(double score) {
+        this.score = score;
+    }
+}
@@ -0,0 +1,213 @@
+package com.example.note.search;
+
+import com.example.note.dao.NoteDao;
+import com.example.note.entities.NoteChunk;
+import com.example.note.entities.NoteSummary;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+public class NoteSearchEngine {
+
+    private static final int FUZZY_CANDIDATES = 300;
+
+    private final NoteDao noteDao;
+
+    public NoteSearchEngine(NoteDao noteDao) {
+        this.noteDao = noteDao;
+    }
+
+    public List<NoteSummary> search(String query) {
+        return searchMatching(toMatchQuery(query), null);
+    }
+
+    // With candidateIds, only those notes are searched; used when the query refines one whose results are known.
+    public List<NoteSummary> searchMatching(String matchQuery, List<Long> candidateIds) {
+        if (matchQuery == null || (candidateIds != null && candidateIds.isEmpty())) {
+            return new ArrayList<>();
+        }
+
+        List<NoteMatch> matches = candidateIds == null
+                ? noteDao.searchNotes(matchQuery, SearchQueries.MAX_MATCHED_ROWS)
+                : noteDao.searchNotesAmong(matchQuery, candidateIds, SearchQueries.MAX_MATCHED_ROWS);
+        if (matches.isEmpty()) {
+            matches = searchFuzzy(matchQuery);
+        } else {
+            matches = bestMatchPerNote(matches);
+        }
+        Collections.sort(matches, SearchQueries.BY_RANK);
+
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < matches.size() && i < SearchQueries.MAX_RESULTS; i++) {
+            ids.add(matches.get(i).getNoteId());
+        }
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Map<Long, NoteSummary> notesById = new HashMap<>();
+        for (NoteSummary note : noteDao.getNotesByIds(ids)) {
+            notesById.put(note.getId(), note);
+        }
+
+        List<NoteSummary> rankedNotes = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            NoteSummary note = notesById.get(id);
+            if (note != null) {
+                rankedNotes.add(note);
+            }
+        }
+        return rankedNotes;
+    }
+
+    // A large note can match in its title row and in several of its chunks; it ranks by its best one.
+    private static List<NoteMatch> bestMatchPerNote(List<NoteMatch> matches) {
+        Map<Long, NoteMatch> bestMatches = new HashMap<>();
+        for (NoteMatch match : matches) {
+            match.setScore(SearchQueries.score(match.getMatchInfo(), match.isInChunk()));
+            NoteMatch bestMatch = bestMatches.get(match.getNoteId());
+            if (bestMatch == null || match.getScore() > bestMatch.getScore()) {
+                bestMatches.put(match.getNoteId(), match);
+            }
+        }
+        return new ArrayList<>(bestMatches.values());
+    }
+
+    // Typo tolerant fallback: notes sharing enough trigrams with the query are candidates, and a candidate matches
+    // when each query word is within maxEdits of one of its words. Title words count double.
+    private List<NoteMatch> searchFuzzy(String matchQuery) {
+        List<String> queryWords = TrigramIndexer.words(matchQuery);
+        List<NoteMatch> matches = new ArrayList<>();
+        if (queryWords.isEmpty()) {
+            return matches;
+        }
+
+        Set<Long> queryTrigrams = new HashSet<>();
+        int allowedEdits = 0;
+        for (String word : queryWords) {
+            TrigramIndexer.addTrigrams(word, queryTrigrams);
+            allowedEdits += TrigramIndexer.maxEdits(word);
+        }
+        // Every edit can break at most three of the query's trigrams.
+        int minShared = Math.max(1, queryTrigrams.size() - 3 * allowedEdits);
+
+        // A long query is cut to the statement limit. A note may lack every trigram that was cut, so that many fewer
+        // have to be shared.
+        List<Long> trigrams = new ArrayList<>(queryTrigrams);
+        if (trigrams.size() > NoteDao.MAX_IDS_PER_STATEMENT) {
+            minShared = Math.max(1, minShared - (trigrams.size() - NoteDao.MAX_IDS_PER_STATEMENT));
+            trigrams = trigrams.subList(0, NoteDao.MAX_IDS_PER_STATEMENT);
+        }
+
+        List<Long> candidateIds = noteDao.getTrigramCandidates(trigrams, minShared, FUZZY_CANDIDATES);
+        if (candidateIds.isEmpty()) {
+            return matches;
+        }
+
+        for (NoteText note : noteDao.getNoteTextsByIds(candidateIds)) {
+            Set<String> titleWords = new HashSet<>(TrigramIndexer.words(note.getTitle()));
+            Set<String> contentWords = contentWords(note);
+
+            double score = 0;
+            for (String queryWord : queryWords) {
+                int maxEdits = TrigramIndexer.maxEdits(queryWord);
+                double titleScore = SearchQueries.COLUMN_WEIGHTS[0] * closeness(queryWord, titleWords, maxEdits);
+                double contentScore = SearchQueries.COLUMN_WEIGHTS[1] * closeness(queryWord, contentWords, maxEdits);
+                double wordScore = Math.max(titleScore, contentScore);
+                if (wordScore == 0) {
+                    score = 0;
+                    break;
+                }
+                score += wordScore;
+            }
+
+            if (score > 0) {
+                NoteMatch match = new NoteMatch();
+                match.setNoteId(note.getId());
+                match.setScore(score);
+                matches.add(match);
+            }
+        }
+        return matches;
+    }
+
+    // The words of a chunked note are collected a few chunks at a time rather than from its whole text.
+    private Set<String> contentWords(NoteText note) {
+        Set<String> words = new HashSet<>(TrigramIndexer.words(note.getContent()));
+        if (!note.isChunked()) {
+            return words;
+        }
+        long afterPosition = Long.MIN_VALUE;
+        List<NoteChunk> chunks;
+        while (!(chunks = noteDao.getChunksAfter(note.getId(), afterPosition, NoteDao.CHUNKS_PER_READ)).isEmpty()) {
+            for (NoteChunk chunk : chunks) {
+                words.addAll(TrigramIndexer.words(chunk.getContent()));
+                afterPosition = chunk.getPosition();
+            }
+        }
+        return words;
+    }
+
+    // 1 for an exact match, falling towards 0 with each edit, and 0 when no word is within maxEdits.
+    private static double closeness(String queryWord, Set<String> words, int maxEdits) {
+        int bestDistance = maxEdits + 1;
+        for (String word : words) {
+            bestDistance = Math.min(bestDistance, TrigramIndexer.boundedEditDistance(queryWord, word, maxEdits));
+            if (bestDistance == 0) {
+                break;
+            }
+        }
+        return bestDistance > maxEdits ? 0 : 1.0 - (double) bestDistance / (maxEdits + 1);
+    }
+
+    // Turns free text into an FTS query where every word is a prefix term, e.g. "Shop lis" -> "shop* lis*".
+    public static String toMatchQuery(String query) {
+        if (query == null) {
+            return null;
+        }
+
+        StringBuilder matchQuery = new StringBuilder();
+        StringBuilder token = new StringBuilder();
+        String lowerCaseQuery = query.toLowerCase(Locale.ROOT);
+
+        for (int i = 0; i <= lowerCaseQuery.length(); i++) {
+            char c = i < lowerCaseQuery.length() ? lowerCaseQuery.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                token.append(c);
+            } else if (token.length() > 0) {
+                if (matchQuery.length() > 0) {
+                    matchQuery.append(' ');
+                }
+                matchQuery.append(token).append('*');
+                token.setLength(0);
+            }
+        }
+        return matchQuery.length() > 0 ? matchQuery.toString() : null;
+    }
+
+    // True when every note matching matchQuery also matches previousMatchQuery: each earlier prefix term was only
+    // extended, and new terms were only added.
+    static boolean isRefinement(String previousMatchQuery, String matchQuery) {
+        if (previousMatchQuery == null || matchQuery == null) {
+            return false;
+        }
+        String[] previousTerms = previousMatchQuery.split(" ");
+        String[] terms = matchQuery.split(" ");
+        if (terms.length < previousTerms.length) {
+            return false;
+        }
+        for (int i = 0; i < previousTerms.length; i++) {
+            String previousPrefix = previousTerms[i].substring(0, previousTerms[i].length() - 1);
+            if (!terms[i].startsWith(previousPrefix)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.note.search;
+
+import androidx.room.ColumnInfo;
+
+// The columns the fuzzy search checks a candidate against; content is only the first chunk of a chunked note.
+public class NoteText {
+
+    @ColumnInfo(name = "id")
+    private long id;
+
+    @ColumnInfo(name = "title")
+    private String title;
+
+    @ColumnInfo(name = "content")
+    private String content;
+
+    @ColumnInfo(name = "chunked")
+    private boolean chunked;
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+    }
+
+    public boolean isChunked() {
+        return chunked;
+    }
+
+    public void setChunked(boolean chunked) {
+        this.chunked = chunked;
+    }
+}
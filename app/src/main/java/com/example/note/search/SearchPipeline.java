@@ -0,0 +1,138 @@
+package com.example.note.search;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.LruCache;
+
+import com.example.note.entities.NoteSummary;
+import com.example.note.repository.NoteRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Runs searches as the user types, main thread only. Input is debounced, a newer query cancels the one in flight,
+// a query that refines the last one only searches the last results, and recent results are cached until the
+// notes change.
+public class SearchPipeline {
+
+    public interface ResultListener {
+        void onSearchResults(List<NoteSummary> results);
+
+        void onSearchCleared();
+    }
+
+    public static final long DEBOUNCE_MILLIS = 250;
+
+    private static final int RESULT_CACHE_SIZE = 20;
+    private static final String SEARCH_REQUEST_KEY = "search";
+
+    private final NoteRepository noteRepository;
+    private final NoteSearchEngine noteSearchEngine;
+    private final ResultListener resultListener;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable searchRunnable = this::runSearch;
+    private final LruCache<String, List<NoteSummary>> resultCache = new LruCache<>(RESULT_CACHE_SIZE);
+
+    private String matchQuery;
+    private String lastMatchQuery;
+    private List<NoteSummary> lastResults;
+    private long dataVersion;
+    private NoteRepository.Request searchRequest;
+
+    public SearchPipeline(NoteRepository noteRepository, ResultListener resultListener) {
+        this.noteRepository = noteRepository;
+        this.noteSearchEngine = noteRepository.getSearchEngine();
+        this.resultListener = resultListener;
+    }
+
+    public void setQuery(String query) {
+        String newMatchQuery = NoteSearchEngine.toMatchQuery(query);
+        if (newMatchQuery != null && newMatchQuery.equals(matchQuery)) {
+            return;
+        }
+
+        mainHandler.removeCallbacks(searchRunnable);
+        cancelSearchRequest();
+        matchQuery = newMatchQuery;
+
+        if (newMatchQuery == null) {
+            resultListener.onSearchCleared();
+            return;
+        }
+
+        List<NoteSummary> cachedResults = resultCache.get(newMatchQuery);
+        if (cachedResults != null) {
+            showResults(newMatchQuery, cachedResults);
+            return;
+        }
+        mainHandler.postDelayed(searchRunnable, DEBOUNCE_MILLIS);
+    }
+
+    public boolean isSearching() {
+        return matchQuery != null;
+    }
+
+    // The notes changed, so every cached result may be stale; the current query is searched again right away.
+    public void refresh() {
+        dataVersion++;
+        resultCache.evictAll();
+        lastMatchQuery = null;
+        lastResults = null;
+
+        if (matchQuery != null) {
+            mainHandler.removeCallbacks(searchRunnable);
+            runSearch();
+        }
+    }
+
+    public void close() {
+        mainHandler.removeCallbacks(searchRunnable);
+        cancelSearchRequest();
+    }
+
+    private void runSearch() {
+        final String query = matchQuery;
+        final long searchedVersion = dataVersion;
+
+        // Results capped at MAX_RESULTS may be missing matches, so they can't be narrowed down. Without any
+        // results there is nothing to narrow, and the longer query may still find typo matches.
+        List<Long> candidateIds = null;
+        if (lastResults != null
+                && !lastResults.isEmpty()
+                && lastResults.size() < SearchQueries.MAX_RESULTS
+                && NoteSearchEngine.isRefinement(lastMatchQuery, query)) {
+            candidateIds = new ArrayList<>(lastResults.size());
+            for (NoteSummary note : lastResults) {
+                candidateIds.add(note.getId());
+            }
+        }
+
+        final List<Long> searchedIds = candidateIds;
+        searchRequest = noteRepository.readLatest(
+                SEARCH_REQUEST_KEY,
+                () -> noteSearchEngine.searchMatching(query, searchedIds),
+                results -> {
+                    searchRequest = null;
+                    if (results == null) {
+                        return;
+                    }
+                    if (searchedVersion == dataVersion) {
+                        resultCache.put(query, results);
+                    }
+                    showResults(query, results);
+                });
+    }
+
+    private void showResults(String query, List<NoteSummary> results) {
+        lastMatchQuery = query;
+        lastResults = results;
+        resultListener.onSearchResults(results);
+    }
+
+    private void cancelSearchRequest() {
+        if (searchRequest != null) {
+            searchRequest.cancel();
+            searchRequest = null;
+        }
+    }
+}
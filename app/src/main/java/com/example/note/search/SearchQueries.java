@@ -0,0 +1,52 @@
+package com.example.note.search;
+
+import java.util.Comparator;
+
+// The full-text query and ranking NoteSearchEngine runs. Free of Android and Room classes, so the benchmark module
+// compiles it from the app sources and measures the same SQL and order that ship.
+public final class SearchQueries {
+
+    public static final int MAX_RESULTS = 200;
+    // Rows of FTS matches read per search, title rows and chunk rows each, before ranking. A short prefix can match
+    // most notes, and without the cap every one of them would be read, scored and sorted.
+    public static final int MAX_MATCHED_ROWS = 5 * MAX_RESULTS;
+
+    // Matches in the title and first chunk of every note, then in the chunks of large notes; a note can match in
+    // several rows. Each half reads at most limit rows, newest first, since FTS4 can walk its index in rowid order
+    // and stop; the rows are ranked afterwards.
+    public static final String SEARCH_NOTES =
+            "SELECT * FROM (SELECT notes_fts.rowid AS noteId, 0 AS inChunk, matchinfo(notes_fts, 'pcx') AS matchInfo FROM notes_fts "
+                    + "WHERE notes_fts MATCH :matchQuery ORDER BY notes_fts.rowid DESC LIMIT :limit) "
+                    + "UNION ALL SELECT * FROM (SELECT note_chunks.noteId AS noteId, 1 AS inChunk, matchinfo(note_chunks_fts, 'pcx') AS matchInfo FROM note_chunks_fts "
+                    + "INNER JOIN note_chunks ON note_chunks.rowid = note_chunks_fts.rowid WHERE note_chunks_fts MATCH :matchQuery ORDER BY note_chunks_fts.rowid DESC LIMIT :limit)";
+
+    public static final String SEARCH_NOTES_AMONG =
+            "SELECT * FROM (SELECT notes_fts.rowid AS noteId, 0 AS inChunk, matchinfo(notes_fts, 'pcx') AS matchInfo FROM notes_fts "
+                    + "WHERE notes_fts MATCH :matchQuery AND notes_fts.rowid IN (:noteIds) ORDER BY notes_fts.rowid DESC LIMIT :limit) "
+                    + "UNION ALL SELECT * FROM (SELECT note_chunks.noteId AS noteId, 1 AS inChunk, matchinfo(note_chunks_fts, 'pcx') AS matchInfo FROM note_chunks_fts "
+                    + "INNER JOIN note_chunks ON note_chunks.rowid = note_chunks_fts.rowid WHERE note_chunks_fts MATCH :matchQuery AND note_chunks.noteId IN (:noteIds) "
+                    + "ORDER BY note_chunks_fts.rowid DESC LIMIT :limit)";
+
+    // Title matches weigh double. A chunk row only has the content column.
+    static final double[] COLUMN_WEIGHTS = {2.0, 1.0};
+    private static final double[] CHUNK_COLUMN_WEIGHTS = {COLUMN_WEIGHTS[1]};
+
+    public interface RankedMatch {
+        long getNoteId();
+
+        double getScore();
+    }
+
+    // Best score first, newer notes first among equal scores.
+    public static final Comparator<RankedMatch> BY_RANK = (first, second) -> {
+        int byScore = Double.compare(second.getScore(), first.getScore());
+        return byScore != 0 ? byScore : Long.compare(second.getNoteId(), first.getNoteId());
+    };
+
+    private SearchQueries() {
+    }
+
+    public static double score(byte[] matchInfo, boolean inChunk) {
+        return SearchRanker.score(matchInfo, inChunk ? CHUNK_COLUMN_WEIGHTS : COLUMN_WEIGHTS);
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.note.search;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+
+public final class SearchRanker {
+
+    private SearchRanker() {
+    }
+
+    // Scores a matchinfo(..., 'pcx') blob: the phrase count, the column count and then
+    // (hits in this row, hits in all rows, rows with hits) for every phrase/column pair.
+    public static double score(byte[] matchInfo, double[] columnWeights) {
+        if (matchInfo == null || matchInfo.length < 8) {
+            return 0;
+        }
+        IntBuffer values = ByteBuffer.wrap(matchInfo).order(ByteOrder.nativeOrder()).asIntBuffer();
+        int phraseCount = values.get(0);
+        int columnCount = values.get(1);
+
+        double score = 0;
+        for (int phrase = 0; phrase < phraseCount; phrase++) {
+            for (int column = 0; column < columnCount; column++) {
+                int offset = 2 + 3 * (phrase * columnCount + column);
+                int hitsInRow = values.get(offset);
+                int hitsInAllRows = values.get(offset + 1);
+
+                if (hitsInRow > 0 && hitsInAllRows > 0) {
+                    double weight = column < columnWeights.length ? columnWeights[column] : 1.0;
+                    score += weight * hitsInRow / hitsInAllRows;
+                }
+            }
+        }
+        return score;
+    }
+}
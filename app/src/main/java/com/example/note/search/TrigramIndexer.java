@@ -0,0 +1,96 @@
+package com.example.note.search;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+// Splits text into lowercase words and words into padded trigrams ("cat" -> "  c", " ca", "cat", "at "), each
+// packed into a long as three 16 bit chars. A typo changes at most three trigrams of a word, so notes sharing
+// enough trigrams with a query are the candidates worth checking with the edit distance.
+public final class TrigramIndexer {
+
+    private TrigramIndexer() {
+    }
+
+    public static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) {
+            return words;
+        }
+
+        String lowerCaseText = text.toLowerCase(Locale.ROOT);
+        int wordStart = -1;
+        for (int i = 0; i <= lowerCaseText.length(); i++) {
+            boolean inWord = i < lowerCaseText.length() && Character.isLetterOrDigit(lowerCaseText.charAt(i));
+            if (inWord && wordStart < 0) {
+                wordStart = i;
+            } else if (!inWord && wordStart >= 0) {
+                words.add(lowerCaseText.substring(wordStart, i));
+                wordStart = -1;
+            }
+        }
+        return words;
+    }
+
+    public static Set<Long> trigrams(String... texts) {
+        Set<Long> trigrams = new HashSet<>();
+        for (String text : texts) {
+            for (String word : words(text)) {
+                addTrigrams(word, trigrams);
+            }
+        }
+        return trigrams;
+    }
+
+    public static void addTrigrams(String word, Set<Long> trigrams) {
+        String padded = "  " + word + " ";
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add(pack(padded.charAt(i), padded.charAt(i + 1), padded.charAt(i + 2)));
+        }
+    }
+
+    // How many edits a query word may be away from a note word and still match it.
+    public static int maxEdits(String word) {
+        if (word.length() <= 3) {
+            return 0;
+        }
+        return word.length() <= 7 ? 1 : 2;
+    }
+
+    // The Levenshtein distance, or maxDistance + 1 as soon as it is certain to be larger than maxDistance.
+    public static int boundedEditDistance(String first, String second, int maxDistance) {
+        if (Math.abs(first.length() - second.length()) > maxDistance) {
+            return maxDistance + 1;
+        }
+
+        int[] previousRow = new int[second.length() + 1];
+        int[] currentRow = new int[second.length() + 1];
+        for (int j = 0; j <= second.length(); j++) {
+            previousRow[j] = j;
+        }
+
+        for (int i = 1; i <= first.length(); i++) {
+            currentRow[0] = i;
+            int rowMinimum = currentRow[0];
+            for (int j = 1; j <= second.length(); j++) {
+                int substitution = previousRow[j - 1] + (first.charAt(i - 1) == second.charAt(j - 1) ? 0 : 1);
+                currentRow[j] = Math.min(substitution, Math.min(previousRow[j], currentRow[j - 1]) + 1);
+                rowMinimum = Math.min(rowMinimum, currentRow[j]);
+            }
+            if (rowMinimum > maxDistance) {
+                return maxDistance + 1;
+            }
+
+            int[] swap = previousRow;
+            previousRow = currentRow;
+            currentRow = swap;
+        }
+        return Math.min(previousRow[second.length()], maxDistance + 1);
+    }
+
+    private static long pack(char first, char second, char third) {
+        return ((long) first << 32) | ((long) second << 16) | third;
+    }
+}
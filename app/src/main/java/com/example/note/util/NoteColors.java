@@ -0,0 +1,20 @@
+package com.example.note.util;
+
+// The colors a note can be given, in the order of R.array.note_color_names.
+public final class NoteColors {
+
+    public static final int DEFAULT = 0xFF444444;
+    public static final int YELLOW = 0xFFFDBE3B;
+    public static final int RED = 0xFF9B2335;
+    public static final int BLUE = 0xFF34568B;
+    public static final int BLACK = 0xFF000000;
+
+    private static final int[] PALETTE = {DEFAULT, YELLOW, RED, BLUE, BLACK};
+
+    private NoteColors() {
+    }
+
+    public static int get(int index) {
+        return PALETTE[index];
+    }
+}
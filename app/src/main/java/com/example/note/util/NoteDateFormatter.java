@@ -0,0 +1,29 @@
+package com.example.note.util;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+// Main thread only: SimpleDateFormat is not thread safe, so one instance is cached per locale.
+public final class NoteDateFormatter {
+
+    public static final String PATTERN = "HH:mm - EEEE, dd MMMM yyyy";
+
+    private static final Date reusableDate = new Date();
+
+    private static Locale cachedLocale;
+    private static SimpleDateFormat cachedFormat;
+
+    private NoteDateFormatter() {
+    }
+
+    public static String format(long epochMillis) {
+        Locale locale = Locale.getDefault();
+        if (cachedFormat == null || !locale.equals(cachedLocale)) {
+            cachedFormat = new SimpleDateFormat(PATTERN, locale);
+            cachedLocale = locale;
+        }
+        reusableDate.setTime(epochMillis);
+        return cachedFormat.format(reusableDate);
+    }
+}
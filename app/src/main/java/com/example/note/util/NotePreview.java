@@ -0,0 +1,21 @@
+package com.example.note.util;
+
+public final class NotePreview {
+
+    // The card shows at most 8 lines of content, this comfortably covers them on any screen width.
+    public static final int MAX_LENGTH = 300;
+
+    private NotePreview() {
+    }
+
+    public static String of(String content) {
+        if (content == null || content.length() <= MAX_LENGTH) {
+            return content;
+        }
+        int end = MAX_LENGTH;
+        if (Character.isHighSurrogate(content.charAt(end - 1))) {
+            end--;
+        }
+        return content.substring(0, end);
+    }
+}
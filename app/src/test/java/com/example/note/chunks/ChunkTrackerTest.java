@@ -0,0 +1,77 @@
+package com.example.note.chunks;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class ChunkTrackerTest {
+
+    private static final int CHUNK = ChunkTracker.CHUNK_SIZE;
+
+    @Test
+    public void splitKeepsSurrogatePairsTogether() {
+        StringBuilder text = new StringBuilder(repeat('a', CHUNK - 1)).append("\uD83D\uDE00").append("b");
+
+        List<Integer> ends = ChunkTracker.split(text);
+
+        assertEquals(Arrays.asList(CHUNK - 1, CHUNK + 2), ends);
+    }
+
+    @Test
+    public void writesOnlyTheEditedChunk() {
+        StringBuilder text = new StringBuilder(repeat('a', 3 * CHUNK));
+        ChunkTracker tracker = ChunkTracker.forStoredText(text);
+
+        text.insert(CHUNK + 10, "xyz");
+        tracker.onTextChanged(CHUNK + 10, 0, 3);
+        ChunkTracker.Changes changes = tracker.takeChanges(text);
+
+        assertEquals(1, changes.getWrites().size());
+        ChunkTracker.ChunkWrite write = changes.getWrites().get(0);
+        assertEquals(ChunkTracker.positionOf(1), write.getPosition());
+        assertEquals(CHUNK, write.getStart());
+        assertEquals(2 * CHUNK + 3, write.getEnd());
+        assertTrue(tracker.takeChanges(text).isEmpty());
+    }
+
+    @Test
+    public void deletionAcrossChunksDropsEmptiedChunks() {
+        StringBuilder text = new StringBuilder(repeat('a', 3 * CHUNK));
+        ChunkTracker tracker = ChunkTracker.forStoredText(text);
+
+        text.delete(CHUNK - 5, 2 * CHUNK + 5);
+        tracker.onTextChanged(CHUNK - 5, CHUNK + 10, 0);
+        ChunkTracker.Changes changes = tracker.takeChanges(text);
+
+        assertEquals(Arrays.asList(ChunkTracker.positionOf(1)), changes.getDeletedPositions());
+        assertEquals(2, changes.getWrites().size());
+        assertEquals(CHUNK - 5, changes.getWrites().get(0).getEnd());
+        assertEquals(text.length(), changes.getWrites().get(1).getEnd());
+    }
+
+    @Test
+    public void oversizedChunkIsSplitBetweenItsNeighbours() {
+        StringBuilder text = new StringBuilder(repeat('a', 3 * CHUNK));
+        ChunkTracker tracker = ChunkTracker.forStoredText(text);
+
+        text.insert(0, repeat('b', 2 * CHUNK));
+        tracker.onTextChanged(0, 0, 2 * CHUNK);
+        ChunkTracker.Changes changes = tracker.takeChanges(text);
+
+        assertEquals(3, changes.getWrites().size());
+        for (ChunkTracker.ChunkWrite write : changes.getWrites()) {
+            assertTrue(write.getPosition() < ChunkTracker.positionOf(1));
+            assertEquals(CHUNK, write.getEnd() - write.getStart());
+        }
+    }
+
+    private static String repeat(char c, int count) {
+        char[] chars = new char[count];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+}
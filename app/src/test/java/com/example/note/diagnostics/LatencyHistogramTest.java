@@ -0,0 +1,40 @@
+package com.example.note.diagnostics;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void bucketsArePowersOfTwo() {
+        assertEquals(0, LatencyHistogram.bucketOf(0));
+        assertEquals(0, LatencyHistogram.bucketOf(1));
+        assertEquals(1, LatencyHistogram.bucketOf(2));
+        assertEquals(1, LatencyHistogram.bucketOf(3));
+        assertEquals(10, LatencyHistogram.bucketOf(1024));
+        assertEquals(39, LatencyHistogram.bucketOf(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void percentilesAreBucketUpperBoundsCappedAtTheMax() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 90; i++) {
+            histogram.record(100, 1);
+        }
+        for (int i = 0; i < 10; i++) {
+            histogram.record(5000, 2);
+        }
+
+        assertEquals(128, histogram.percentileMicros(0.5));
+        assertEquals(128, histogram.percentileMicros(0.9));
+        assertEquals(5000, histogram.percentileMicros(0.99));
+        assertEquals(100, histogram.getCount());
+        assertEquals("count=100 rows=110 mean=0.59ms p50<=0.13ms p90<=0.13ms p99<=5.00ms max=5.00ms", histogram.format());
+    }
+
+    @Test
+    public void emptyHistogramReportsZeros() {
+        assertEquals(0, new LatencyHistogram().percentileMicros(0.99));
+    }
+}
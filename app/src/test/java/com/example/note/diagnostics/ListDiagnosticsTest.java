@@ -0,0 +1,31 @@
+package com.example.note.diagnostics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class ListDiagnosticsTest {
+
+    private static final long REFRESH_NANOS = 16_666_667;
+
+    @Test
+    public void countsRefreshesMissedByALateFrame() {
+        assertEquals(0, ListDiagnostics.droppedFrames(REFRESH_NANOS, REFRESH_NANOS));
+        assertEquals(1, ListDiagnostics.droppedFrames(2 * REFRESH_NANOS, REFRESH_NANOS));
+        assertEquals(3, ListDiagnostics.droppedFrames(66_000_000, REFRESH_NANOS));
+    }
+
+    @Test
+    public void onlyFramesHalfARefreshLateAreSlow() {
+        ListDiagnostics listDiagnostics = new ListDiagnostics();
+        listDiagnostics.recordFrame(REFRESH_NANOS, REFRESH_NANOS);
+        listDiagnostics.recordFrame(20_000_000, REFRESH_NANOS);
+        listDiagnostics.recordFrame(50_000_000, REFRESH_NANOS);
+
+        StringBuilder dump = new StringBuilder();
+        listDiagnostics.dump(dump);
+
+        assertTrue(dump.toString(), dump.toString().contains("scroll frames=3 slow=1 dropped=2 refresh=16.67ms"));
+    }
+}
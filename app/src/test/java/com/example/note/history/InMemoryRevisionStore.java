@@ -0,0 +1,248 @@
+package com.example.note.history;
+
+import com.example.note.chunks.ChunkTracker;
+import com.example.note.entities.Note;
+import com.example.note.entities.NoteChunk;
+import com.example.note.entities.NoteRevision;
+import com.example.note.entities.NoteRevisionChunk;
+import com.example.note.util.NotePreview;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Answers the RevisionStore calls the way the NoteDao queries do, over plain lists.
+class InMemoryRevisionStore implements RevisionStore {
+
+    private final Map<Long, Note> notes = new HashMap<>();
+    private final List<NoteChunk> chunks = new ArrayList<>();
+    private final List<NoteRevision> revisions = new ArrayList<>();
+    private final List<NoteRevisionChunk> revisionChunks = new ArrayList<>();
+
+    Note addNote(long id, String title, String content) {
+        Note note = new Note();
+        note.setId(id);
+        note.setTitle(title);
+        notes.put(id, note);
+        storeContent(id, content, 0);
+        return note;
+    }
+
+    // Rewrites one chunk as the editor would, leaving it to the next revision.
+    void editChunk(long noteId, long position, String content) {
+        for (NoteChunk chunk : chunks) {
+            if (chunk.getNoteId() == noteId && chunk.getPosition() == position) {
+                chunk.setContent(content);
+                chunk.setRevised(false);
+            }
+        }
+    }
+
+    List<NoteRevision> getRevisions() {
+        return revisions;
+    }
+
+    List<NoteRevisionChunk> getRevisionChunks(long revisionId) {
+        List<NoteRevisionChunk> rows = new ArrayList<>();
+        for (NoteRevisionChunk row : revisionChunks) {
+            if (row.getRevisionId() == revisionId) {
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    List<String> getChunkContents(long noteId) {
+        List<String> contents = new ArrayList<>();
+        for (NoteChunk chunk : chunksOf(noteId)) {
+            contents.add(chunk.getContent());
+        }
+        return contents;
+    }
+
+    @Override
+    public Note getNoteById(long id) {
+        return notes.get(id);
+    }
+
+    @Override
+    public int updateTitle(long id, String title, long updatedAt) {
+        Note note = notes.get(id);
+        note.setTitle(title);
+        note.setUpdatedAt(updatedAt);
+        return 1;
+    }
+
+    @Override
+    public int updateStoredContent(long id, String content, String preview, boolean chunked, long updatedAt) {
+        Note note = notes.get(id);
+        note.setContent(content);
+        note.setPreview(preview);
+        note.setChunked(chunked);
+        note.setUpdatedAt(updatedAt);
+        return 1;
+    }
+
+    @Override
+    public void storeContent(long id, String content, long updatedAt) {
+        deleteAllChunks(id);
+        String storedContent = content;
+        if (ChunkTracker.needsChunks(content)) {
+            int start = 0;
+            List<Integer> ends = ChunkTracker.split(content);
+            for (int i = 0; i < ends.size(); i++) {
+                insertChunk(new NoteChunk(id, ChunkTracker.positionOf(i), content.substring(start, ends.get(i))));
+                start = ends.get(i);
+            }
+            storedContent = content.substring(0, ends.get(0));
+        }
+        updateStoredContent(id, storedContent, NotePreview.of(storedContent), ChunkTracker.needsChunks(content), updatedAt);
+    }
+
+    @Override
+    public void deleteAllChunks(long noteId) {
+        chunks.removeIf(chunk -> chunk.getNoteId() == noteId);
+    }
+
+    @Override
+    public List<Long> getChunkPositions(long noteId) {
+        List<Long> positions = new ArrayList<>();
+        for (NoteChunk chunk : chunksOf(noteId)) {
+            positions.add(chunk.getPosition());
+        }
+        return positions;
+    }
+
+    @Override
+    public List<NoteChunk> getChunksToRevise(long noteId, long afterPosition, boolean includeRevised, int limit) {
+        List<NoteChunk> page = new ArrayList<>();
+        for (NoteChunk chunk : chunksOf(noteId)) {
+            if (chunk.getPosition() > afterPosition && (!chunk.isRevised() || includeRevised) && page.size() < limit) {
+                page.add(chunk);
+            }
+        }
+        return page;
+    }
+
+    @Override
+    public void markChunksRevised(long noteId) {
+        for (NoteChunk chunk : chunksOf(noteId)) {
+            chunk.setRevised(true);
+        }
+    }
+
+    @Override
+    public void insertChunk(NoteChunk chunk) {
+        chunks.add(chunk);
+    }
+
+    @Override
+    public long insertRevision(NoteRevision revision) {
+        revision.setId(revisions.size() + 1);
+        revisions.add(revision);
+        return revision.getId();
+    }
+
+    @Override
+    public Long getLatestRevisionId(long noteId) {
+        Long latestId = null;
+        for (NoteRevision revision : revisions) {
+            if (revision.getNoteId() == noteId) {
+                latestId = revision.getId();
+            }
+        }
+        return latestId;
+    }
+
+    @Override
+    public NoteRevision getRevision(long noteId, long revisionId) {
+        for (NoteRevision revision : revisions) {
+            if (revision.getNoteId() == noteId && revision.getId() == revisionId) {
+                return revision;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public List<NoteRevision> getRevisionChain(long noteId, long revisionId) {
+        List<NoteRevision> chain = new ArrayList<>();
+        for (NoteRevision revision : revisions) {
+            if (revision.getNoteId() != noteId || revision.getId() > revisionId || revision.isChunked()) {
+                continue;
+            }
+            if (revision.isSnapshot()) {
+                chain.clear();
+            }
+            if (revision.isSnapshot() || !chain.isEmpty()) {
+                chain.add(revision);
+            }
+        }
+        return chain;
+    }
+
+    @Override
+    public void insertRevisionChunk(NoteRevisionChunk revisionChunk) {
+        revisionChunks.add(revisionChunk);
+    }
+
+    @Override
+    public long getChunkChainsStart(long noteId, long revisionId) {
+        long chainsStart = 0;
+        for (NoteRevision revision : revisions) {
+            if (revision.getNoteId() == noteId && revision.getId() <= revisionId && !revision.isChunked()) {
+                chainsStart = revision.getId();
+            }
+        }
+        return chainsStart;
+    }
+
+    @Override
+    public List<Long> getRevisionChunkPositions(long noteId, long chainsStart, long revisionId) {
+        Map<Long, NoteRevisionChunk> latestByPosition = new TreeMap<>();
+        for (NoteRevisionChunk row : revisionChunks) {
+            if (row.getNoteId() == noteId && row.getRevisionId() > chainsStart && row.getRevisionId() <= revisionId) {
+                latestByPosition.put(row.getPosition(), row);
+            }
+        }
+        List<Long> positions = new ArrayList<>();
+        for (NoteRevisionChunk row : latestByPosition.values()) {
+            if (!row.isDeleted()) {
+                positions.add(row.getPosition());
+            }
+        }
+        return positions;
+    }
+
+    @Override
+    public List<NoteRevisionChunk> getRevisionChunkChain(long noteId, long position, long chainsStart, long revisionId) {
+        List<NoteRevisionChunk> chain = new ArrayList<>();
+        for (NoteRevisionChunk row : revisionChunks) {
+            if (row.getNoteId() != noteId || row.getPosition() != position
+                    || row.getRevisionId() <= chainsStart || row.getRevisionId() > revisionId) {
+                continue;
+            }
+            if (row.isSnapshot()) {
+                chain.clear();
+            }
+            if (row.isSnapshot() || !chain.isEmpty()) {
+                chain.add(row);
+            }
+        }
+        return chain;
+    }
+
+    private List<NoteChunk> chunksOf(long noteId) {
+        List<NoteChunk> noteChunks = new ArrayList<>();
+        for (NoteChunk chunk : chunks) {
+            if (chunk.getNoteId() == noteId) {
+                noteChunks.add(chunk);
+            }
+        }
+        noteChunks.sort(Comparator.comparingLong(NoteChunk::getPosition));
+        return noteChunks;
+    }
+}
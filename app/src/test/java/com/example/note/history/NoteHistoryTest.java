@@ -0,0 +1,92 @@
+package com.example.note.history;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.example.note.chunks.ChunkTracker;
+import com.example.note.entities.NoteRevision;
+import com.example.note.entities.NoteRevisionChunk;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class NoteHistoryTest {
+
+    private static final long NOTE_ID = 1;
+    private static final int CHUNK = ChunkTracker.CHUNK_SIZE;
+
+    private final InMemoryRevisionStore store = new InMemoryRevisionStore();
+    private final NoteHistory history = new NoteHistory(store);
+
+    @Test
+    public void startsANewChainEverySnapshotInterval() {
+        store.addNote(NOTE_ID, "list", "milk");
+        for (int i = 0; i <= NoteHistory.SNAPSHOT_INTERVAL; i++) {
+            store.storeContent(NOTE_ID, "milk " + i, i);
+            assertTrue(history.recordRevision(NOTE_ID, i));
+        }
+
+        List<NoteRevision> revisions = store.getRevisions();
+        assertEquals(NoteHistory.SNAPSHOT_INTERVAL + 1, revisions.size());
+        for (int i = 0; i < revisions.size(); i++) {
+            assertEquals(i % NoteHistory.SNAPSHOT_INTERVAL == 0, revisions.get(i).isSnapshot());
+        }
+        assertEquals("milk " + NoteHistory.SNAPSHOT_INTERVAL, revisions.get(NoteHistory.SNAPSHOT_INTERVAL).getInsertedText());
+    }
+
+    @Test
+    public void skipsANoteThatDidNotChange() {
+        store.addNote(NOTE_ID, "list", "milk");
+        assertTrue(history.recordRevision(NOTE_ID, 1));
+        store.storeContent(NOTE_ID, "milk and eggs", 2);
+        assertTrue(history.recordRevision(NOTE_ID, 2));
+
+        assertFalse(history.recordRevision(NOTE_ID, 3));
+        store.updateTitle(NOTE_ID, "groceries", 4);
+        assertTrue(history.recordRevision(NOTE_ID, 4));
+        assertEquals(3, store.getRevisions().size());
+    }
+
+    @Test
+    public void restoreRebuildsTheRevisionFromItsChain() {
+        store.addNote(NOTE_ID, "list", "milk");
+        String[] contents = {"milk", "milk and eggs", "bread, milk and eggs", "bread and eggs"};
+        for (int i = 0; i < contents.length; i++) {
+            store.storeContent(NOTE_ID, contents[i], i);
+            history.recordRevision(NOTE_ID, i);
+        }
+
+        assertTrue(history.restoreRevision(NOTE_ID, 3, 10));
+
+        assertEquals("bread, milk and eggs", store.getNoteById(NOTE_ID).getContent());
+        assertTrue(history.recordRevision(NOTE_ID, 11));
+        assertFalse(store.getRevisions().get(contents.length).isSnapshot());
+    }
+
+    @Test
+    public void recordsOnlyTheEditedChunkOfAChunkedNote() {
+        store.addNote(NOTE_ID, "book", repeat('a', CHUNK) + repeat('b', CHUNK) + repeat('c', CHUNK));
+        assertTrue(history.recordRevision(NOTE_ID, 1));
+        assertEquals(3, store.getRevisionChunks(1).size());
+
+        store.editChunk(NOTE_ID, ChunkTracker.positionOf(1), repeat('b', CHUNK - 1) + "x");
+        assertTrue(history.recordRevision(NOTE_ID, 2));
+
+        List<NoteRevisionChunk> edited = store.getRevisionChunks(2);
+        assertEquals(1, edited.size());
+        assertEquals(ChunkTracker.positionOf(1), edited.get(0).getPosition());
+        assertEquals("x", edited.get(0).getInsertedText());
+
+        assertTrue(history.restoreRevision(NOTE_ID, 1, 3));
+        assertEquals(Arrays.asList(repeat('a', CHUNK), repeat('b', CHUNK), repeat('c', CHUNK)), store.getChunkContents(NOTE_ID));
+    }
+
+    private static String repeat(char c, int count) {
+        char[] chars = new char[count];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+}
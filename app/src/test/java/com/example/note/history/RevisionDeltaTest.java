@@ -0,0 +1,38 @@
+package com.example.note.history;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class RevisionDeltaTest {
+
+    @Test
+    public void storesOnlyTheChangedMiddle() {
+        RevisionDelta delta = RevisionDelta.between("buy milk and eggs", "buy milk, bread and eggs");
+
+        assertEquals(8, delta.getPrefixLength());
+        assertEquals(9, delta.getSuffixLength());
+        assertEquals(", bread", delta.getInsertedText());
+        assertEquals("buy milk, bread and eggs", delta.applyTo("buy milk and eggs"));
+    }
+
+    @Test
+    public void handlesDeletionsAndEmptyTexts() {
+        assertRoundTrip("buy milk, bread and eggs", "buy eggs");
+        assertRoundTrip(null, "first line");
+        assertRoundTrip("last line", "");
+        assertRoundTrip("aaaa", "aa");
+    }
+
+    @Test
+    public void keepsSurrogatePairsTogether() {
+        RevisionDelta delta = RevisionDelta.between("note \uD83D\uDE00", "note \uD83D\uDE01");
+
+        assertEquals("\uD83D\uDE01", delta.getInsertedText());
+        assertEquals("note \uD83D\uDE01", delta.applyTo("note \uD83D\uDE00"));
+    }
+
+    private static void assertRoundTrip(String previous, String current) {
+        assertEquals(current, RevisionDelta.between(previous, current).applyTo(previous));
+    }
+}
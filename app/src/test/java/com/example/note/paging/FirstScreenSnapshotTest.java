@@ -0,0 +1,55 @@
+package com.example.note.paging;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.example.note.entities.NoteSummary;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+public class FirstScreenSnapshotTest {
+
+    @Test
+    public void roundTripsSummaries() throws Exception {
+        NoteSummary withImage = summary(7, "Groceries \uD83D\uDE00", "milk, eggs", "/images/7");
+        NoteSummary withoutTitle = summary(3, null, "", null);
+
+        byte[] encoded = FirstScreenSnapshot.encode(Arrays.asList(withImage, withoutTitle));
+        List<NoteSummary> decoded = FirstScreenSnapshot.decode(ByteBuffer.wrap(encoded));
+
+        assertEquals(2, decoded.size());
+        assertEquals(7, decoded.get(0).getId());
+        assertEquals("Groceries \uD83D\uDE00", decoded.get(0).getTitle());
+        assertEquals("/images/7", decoded.get(0).getImagePath());
+        assertEquals(0xFFFFD54F, decoded.get(0).getColor());
+        assertEquals(1700000000007L, decoded.get(0).getUpdatedAt());
+        assertNull(decoded.get(1).getTitle());
+        assertEquals("", decoded.get(1).getPreview());
+    }
+
+    @Test
+    public void truncatedOrForeignDataDecodesToNothing() throws Exception {
+        byte[] encoded = FirstScreenSnapshot.encode(Arrays.asList(summary(1, "title", "preview", null)));
+
+        assertTrue(FirstScreenSnapshot.decode(ByteBuffer.wrap(Arrays.copyOf(encoded, encoded.length - 3))).isEmpty());
+        assertTrue(FirstScreenSnapshot.decode(ByteBuffer.wrap(new byte[]{1, 2, 3, 4, 5, 6, 7, 8})).isEmpty());
+        assertTrue(FirstScreenSnapshot.decode(ByteBuffer.wrap(new byte[0])).isEmpty());
+    }
+
+    private static NoteSummary summary(long id, String title, String preview, String imagePath) {
+        NoteSummary note = new NoteSummary();
+        note.setId(id);
+        note.setTitle(title);
+        note.setPreview(preview);
+        note.setImagePath(imagePath);
+        note.setColor(0xFFFFD54F);
+        note.setCreatedAt(1600000000000L + id);
+        note.setUpdatedAt(1700000000000L + id);
+        return note;
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.note.search;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+public class NoteSearchEngineTest {
+
+    @Test
+    public void matchQueryUsesPrefixTerms() {
+        assertEquals("shop* lis*", NoteSearchEngine.toMatchQuery("  Shop lis"));
+        assertEquals("a* or* b*", NoteSearchEngine.toMatchQuery("a\"-OR-(b"));
+    }
+
+    @Test
+    public void matchQueryIsNullWithoutWords() {
+        assertNull(NoteSearchEngine.toMatchQuery(null));
+        assertNull(NoteSearchEngine.toMatchQuery(" \"*- "));
+    }
+
+    @Test
+    public void extendedOrAddedTermsRefineTheQuery() {
+        assertTrue(NoteSearchEngine.isRefinement("shop*", "shop*"));
+        assertTrue(NoteSearchEngine.isRefinement("sho*", "shop*"));
+        assertTrue(NoteSearchEngine.isRefinement("shop*", "shop* lis*"));
+        assertTrue(NoteSearchEngine.isRefinement("shop* l*", "shopping* list* milk*"));
+    }
+
+    @Test
+    public void shortenedOrChangedTermsDoNotRefineTheQuery() {
+        assertFalse(NoteSearchEngine.isRefinement("shop*", "sho*"));
+        assertFalse(NoteSearchEngine.isRefinement("shop* lis*", "shop*"));
+        assertFalse(NoteSearchEngine.isRefinement("shop* lis*", "lis* shop*"));
+        assertFalse(NoteSearchEngine.isRefinement(null, "shop*"));
+    }
+
+    @Test
+    public void titleHitsRankAboveContentHits() {
+        double[] weights = {2.0, 1.0};
+        double titleHit = SearchRanker.score(matchInfo(1, 2, 1, 4, 2, 0, 6, 3), weights);
+        double contentHit = SearchRanker.score(matchInfo(1, 2, 0, 4, 2, 1, 6, 3), weights);
+
+        assertTrue(titleHit > contentHit);
+    }
+
+    @Test
+    public void emptyMatchInfoScoresZero() {
+        assertEquals(0.0, SearchRanker.score(new byte[0], new double[]{1.0}), 0.0);
+    }
+
+    private static byte[] matchInfo(int... values) {
+        ByteBuffer buffer = ByteBuffer.allocate(values.length * 4).order(ByteOrder.nativeOrder());
+        for (int value : values) {
+            buffer.putInt(value);
+        }
+        return buffer.array();
+    }
+}
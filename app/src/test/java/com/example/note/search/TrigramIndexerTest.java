@@ -0,0 +1,44 @@
+package com.example.note.search;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Set;
+
+public class TrigramIndexerTest {
+
+    @Test
+    public void wordsAreLowerCaseLettersAndDigits() {
+        assertEquals(Arrays.asList("shopping", "list", "2", "milk"), TrigramIndexer.words(" Shopping-list: 2 MILK!"));
+    }
+
+    @Test
+    public void wordsArePaddedBeforeSplitting() {
+        Set<Long> trigrams = TrigramIndexer.trigrams("cat");
+
+        assertEquals(4, trigrams.size());
+        assertEquals(trigrams, TrigramIndexer.trigrams("CAT cat"));
+    }
+
+    @Test
+    public void oneTypoKeepsMostTrigrams() {
+        Set<Long> meeting = TrigramIndexer.trigrams("meeting");
+        Set<Long> typo = TrigramIndexer.trigrams("meetng");
+        int queryTrigrams = typo.size();
+        typo.retainAll(meeting);
+
+        assertTrue(typo.size() >= queryTrigrams - 3 * TrigramIndexer.maxEdits("meetng"));
+    }
+
+    @Test
+    public void editDistanceIsBounded() {
+        assertEquals(0, TrigramIndexer.boundedEditDistance("meeting", "meeting", 1));
+        assertEquals(1, TrigramIndexer.boundedEditDistance("meetng", "meeting", 1));
+        assertEquals(2, TrigramIndexer.boundedEditDistance("meetnig", "meeting", 2));
+        assertEquals(2, TrigramIndexer.boundedEditDistance("meetnig", "meeting", 1));
+        assertEquals(3, TrigramIndexer.boundedEditDistance("cat", "shopping", 2));
+    }
+}
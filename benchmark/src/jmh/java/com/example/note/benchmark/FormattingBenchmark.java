@@ -0,0 +1,53 @@
+package com.example.note.benchmark;
+
+import com.example.note.util.NoteDateFormatter;
+import com.example.note.util.NotePreview;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+// Per-card work done while binding: the creation date label and the content preview.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FormattingBenchmark {
+
+    @Param({"100", "10000"})
+    public int contentWords;
+
+    private long createdAt;
+    private String content;
+
+    @Setup
+    public void setUp() {
+        createdAt = 1_640_000_000_000L;
+        content = NoteCorpus.content(contentWords, 7);
+    }
+
+    @Benchmark
+    public String formatDateCached() {
+        return NoteDateFormatter.format(createdAt);
+    }
+
+    // How the date was formatted before NoteDateFormatter: a new SimpleDateFormat for every card.
+    @Benchmark
+    public String formatDateUncached() {
+        return new SimpleDateFormat(NoteDateFormatter.PATTERN, Locale.getDefault()).format(new Date(createdAt));
+    }
+
+    @Benchmark
+    public String preview() {
+        return NotePreview.of(content);
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.note.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Deterministic synthetic notes: short titles and a few sentences of content drawn from a fixed vocabulary.
+final class NoteCorpus {
+
+    private static final String[] WORDS = {
+            "shopping", "list", "meeting", "notes", "project", "deadline", "call", "mom", "birthday", "gift",
+            "groceries", "milk", "bread", "eggs", "recipe", "pasta", "travel", "flight", "hotel", "booking",
+            "workout", "running", "plan", "weekly", "review", "ideas", "book", "movie", "music", "playlist",
+            "garden", "water", "plants", "car", "service", "insurance", "bank", "transfer", "rent", "invoice",
+            "doctor", "appointment", "dentist", "school", "homework", "exam", "study", "chapter", "lecture", "summary"
+    };
+
+    final List<String> titles;
+    final List<String> contents;
+
+    NoteCorpus(int noteCount, long seed) {
+        Random random = new Random(seed);
+        titles = new ArrayList<>(noteCount);
+        contents = new ArrayList<>(noteCount);
+
+        for (int i = 0; i < noteCount; i++) {
+            titles.add(words(random, 1 + random.nextInt(4)));
+            contents.add(words(random, 20 + random.nextInt(200)));
+        }
+    }
+
+    static String content(int wordCount, long seed) {
+        return words(new Random(seed), wordCount);
+    }
+
+    private static String words(Random random, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                text.append(i % 12 == 0 ? ". " : " ");
+            }
+            text.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.note.benchmark;
+
+import com.example.note.search.SearchQueries;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// The list search: the FTS4 query and ranking NoteSearchEngine runs, from SearchQueries, against the in-memory scan
+// the adapter filter used to do over every loaded note.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SearchBenchmark {
+
+    private static class Match implements SearchQueries.RankedMatch {
+        final long noteId;
+        final double score;
+
+        Match(long noteId, double score) {
+            this.noteId = noteId;
+            this.score = score;
+        }
+
+        @Override
+        public long getNoteId() {
+            return noteId;
+        }
+
+        @Override
+        public double getScore() {
+            return score;
+        }
+    }
+
+    @Param({"1000", "10000", "100000"})
+    public int noteCount;
+
+    // The query as typed and the prefix query NoteSearchEngine turns it into.
+    @Param({"dentist:dentist*", "shop lis:shop* lis*"})
+    public String query;
+
+    private NoteCorpus corpus;
+    private Connection connection;
+    private PreparedStatement searchStatement;
+    private String typedQuery;
+    private String matchQuery;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        corpus = new NoteCorpus(noteCount, 42);
+        typedQuery = query.substring(0, query.indexOf(':'));
+        matchQuery = query.substring(query.indexOf(':') + 1);
+
+        connection = DriverManager.getConnection("jdbc:sqlite::memory:");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE notes (id INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, title TEXT, content TEXT)");
+            statement.execute("CREATE VIRTUAL TABLE notes_fts USING FTS4(title TEXT, content TEXT, tokenize=unicode61, content=`notes`)");
+            // The notes are short enough to stay unchunked, but the query reads the chunk index too.
+            statement.execute("CREATE TABLE note_chunks (noteId INTEGER NOT NULL, position INTEGER NOT NULL, content TEXT, PRIMARY KEY(noteId, position))");
+            statement.execute("CREATE VIRTUAL TABLE note_chunks_fts USING FTS4(content TEXT, tokenize=unicode61, content=`note_chunks`)");
+        }
+
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO notes (title, content) VALUES (?, ?)")) {
+            for (int i = 0; i < noteCount; i++) {
+                insert.setString(1, corpus.titles.get(i));
+                insert.setString(2, corpus.contents.get(i));
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO notes_fts(notes_fts) VALUES('rebuild')");
+        }
+        connection.commit();
+        connection.setAutoCommit(true);
+
+        // Room's named parameters, in the order they appear: matchQuery and limit for each half of the query.
+        searchStatement = connection.prepareStatement(SearchQueries.SEARCH_NOTES.replaceAll(":\\w+", "?"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public List<Long> ftsSearch() throws SQLException {
+        Map<Long, Match> bestMatches = new HashMap<>();
+
+        searchStatement.setString(1, matchQuery);
+        searchStatement.setInt(2, SearchQueries.MAX_MATCHED_ROWS);
+        searchStatement.setString(3, matchQuery);
+        searchStatement.setInt(4, SearchQueries.MAX_MATCHED_ROWS);
+        try (ResultSet resultSet = searchStatement.executeQuery()) {
+            while (resultSet.next()) {
+                Match match = new Match(resultSet.getLong(1), SearchQueries.score(resultSet.getBytes(3), resultSet.getBoolean(2)));
+                Match bestMatch = bestMatches.get(match.noteId);
+                if (bestMatch == null || match.score > bestMatch.score) {
+                    bestMatches.put(match.noteId, match);
+                }
+            }
+        }
+        List<Match> matches = new ArrayList<>(bestMatches.values());
+        Collections.sort(matches, SearchQueries.BY_RANK);
+
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < matches.size() && i < SearchQueries.MAX_RESULTS; i++) {
+            ids.add(matches.get(i).noteId);
+        }
+        return ids;
+    }
+
+    @Benchmark
+    public List<Integer> linearScan() {
+        String lowerCaseQuery = typedQuery.toLowerCase(Locale.getDefault());
+
+        List<Integer> matches = new ArrayList<>();
+        for (int i = 0; i < noteCount; i++) {
+            if (corpus.titles.get(i).toLowerCase(Locale.getDefault()).contains(lowerCaseQuery)
+                    || corpus.contents.get(i).toLowerCase(Locale.getDefault()).contains(lowerCaseQuery)) {
+                matches.add(i);
+            }
+        }
+        return matches;
+    }
+}